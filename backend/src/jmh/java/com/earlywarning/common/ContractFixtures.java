@@ -0,0 +1,93 @@
+package com.earlywarning.common;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic contracts shaped like real uploads: numbered clauses (제N조 / N. TITLE), some short,
+ * some longer than risk.chunk-size with numbered sub-items, some long prose without sub-items.
+ */
+final class ContractFixtures {
+
+    private static final List<String> KO_TITLES = List.of(
+            "목적", "정의", "계약기간", "대금 지급", "비밀유지", "손해배상", "계약의 해지", "지식재산권",
+            "개인정보 보호", "책임의 제한", "분쟁 해결", "불가항력", "양도 금지", "통지", "준거법");
+
+    private static final List<String> KO_SENTENCES = List.of(
+            "갑은 을에게 본 계약에 따른 용역의 대가로 매월 말일까지 해당 월의 용역대금을 지급한다.",
+            "을은 계약 기간 중 및 계약 종료 후 3년간 갑의 영업비밀을 제3자에게 누설하여서는 아니 된다.",
+            "어느 일방이 본 계약을 위반한 경우 상대방은 14일 이내에 시정을 요구할 수 있으며, 시정되지 않을 경우 계약을 해지할 수 있다.",
+            "을의 고의 또는 중대한 과실로 인하여 갑에게 손해가 발생한 경우 을은 그 손해 전액을 배상하여야 한다.",
+            "갑은 사전 통지 없이 언제든지 서비스 내용을 변경하거나 중단할 수 있으며, 이에 대하여 어떠한 책임도 지지 아니한다.",
+            "본 계약과 관련하여 발생한 모든 분쟁은 갑의 본점 소재지를 관할하는 법원을 전속 관할 법원으로 한다.",
+            "을은 갑의 서면 동의 없이 본 계약상의 권리 또는 의무의 전부 또는 일부를 제3자에게 양도할 수 없다.",
+            "개인정보는 수집 목적이 달성된 후 지체 없이 파기하여야 하며, 관계 법령에 따라 보존이 필요한 경우에는 그러하지 아니하다.");
+
+    private static final List<String> EN_TITLES = List.of(
+            "DEFINITIONS", "TERM AND TERMINATION", "FEES AND PAYMENT", "CONFIDENTIALITY", "DATA PROTECTION",
+            "INTELLECTUAL PROPERTY", "WARRANTIES", "LIMITATION OF LIABILITY", "INDEMNIFICATION", "FORCE MAJEURE",
+            "ASSIGNMENT", "NOTICES", "GOVERNING LAW", "DISPUTE RESOLUTION", "MISCELLANEOUS");
+
+    private static final List<String> EN_SENTENCES = List.of(
+            "The Customer shall pay all fees within thirty (30) days of the date of each invoice issued by the Provider.",
+            "The Recipient shall not disclose any Confidential Information to any third party without the prior written consent of the Discloser.",
+            "Either party may terminate this Agreement upon written notice if the other party materially breaches it and fails to cure the breach within fourteen (14) days.",
+            "The Provider may modify or discontinue the Service at any time without notice and shall have no liability for doing so.",
+            "In no event shall either party's aggregate liability exceed the fees paid by the Customer in the twelve (12) months preceding the claim.",
+            "The Provider may collect, retain and use all data generated through the Customer's use of the Service for any purpose.",
+            "All intellectual property rights in any deliverables created under this Agreement shall vest exclusively in the Provider.",
+            "This Agreement shall be governed by the laws of the State of Delaware, without regard to its conflict of laws principles.");
+
+    private ContractFixtures() {
+    }
+
+    static String korean(int clauses, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder("용역 계약서\n\n주식회사 갑(이하 \"갑\")과 주식회사 을(이하 \"을\")은 다음과 같이 계약을 체결한다.\n\n");
+        for (int n = 1; n <= clauses; n++) {
+            sb.append("제").append(n).append("조 (").append(KO_TITLES.get(random.nextInt(KO_TITLES.size()))).append(")\n");
+            body(sb, KO_SENTENCES, random);
+        }
+        sb.append("위 계약의 성립을 증명하기 위하여 본 계약서 2통을 작성하여 갑과 을이 서명 날인 후 각 1통씩 보관한다.\n");
+        return sb.toString();
+    }
+
+    static String english(int clauses, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder("MASTER SERVICES AGREEMENT\n\nEffective Date: January 1, 2025\n"
+                + "Parties: Acme Corp (\"Provider\") and Client Inc. (\"Customer\")\n\n");
+        for (int n = 1; n <= clauses; n++) {
+            sb.append(n).append(". ").append(EN_TITLES.get(random.nextInt(EN_TITLES.size()))).append("\n\n");
+            body(sb, EN_SENTENCES, random);
+        }
+        sb.append("IN WITNESS WHEREOF, the parties have executed this Agreement as of the Effective Date.\n");
+        return sb.toString();
+    }
+
+    /**
+     * Half of the clauses are a short paragraph, a third have numbered sub-items and the rest are long prose.
+     */
+    private static void body(StringBuilder sb, List<String> sentences, Random random) {
+        int shape = random.nextInt(6);
+        if (shape < 3) {
+            paragraph(sb, sentences, random, 1 + random.nextInt(2));
+        } else if (shape < 5) {
+            int items = 3 + random.nextInt(4);
+            for (int i = 1; i <= items; i++) {
+                sb.append(i).append(". ");
+                paragraph(sb, sentences, random, 1 + random.nextInt(2));
+            }
+        } else {
+            paragraph(sb, sentences, random, 6 + random.nextInt(6));
+        }
+        sb.append('\n');
+    }
+
+    private static void paragraph(StringBuilder sb, List<String> sentences, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(sentences.get(random.nextInt(sentences.size())));
+        }
+        sb.append('\n');
+    }
+}
@@ -0,0 +1,36 @@
+package com.earlywarning.common;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LanguageDetector#detect} over whole generated contracts, as called on every upload.
+ * Run with -prof gc for gc.alloc.rate.norm per document.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LanguageDetectorBenchmark {
+
+    @Param({"ko", "en"})
+    private String language;
+
+    @Param({"40", "400"})
+    private int clauses;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = "ko".equals(language) ? ContractFixtures.korean(clauses, 42) : ContractFixtures.english(clauses, 42);
+    }
+
+    @Benchmark
+    public String detect() {
+        return LanguageDetector.detect(text);
+    }
+}
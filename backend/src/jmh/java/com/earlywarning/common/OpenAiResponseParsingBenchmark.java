@@ -0,0 +1,76 @@
+package com.earlywarning.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedding response parsing: body String + JsonNode tree (the previous approach) against
+ * {@link OpenAiResponseReader}. Run with -prof gc to compare gc.alloc.rate.norm per response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OpenAiResponseParsingBenchmark {
+
+    @Param({"1", "16", "64"})
+    private int inputs;
+
+    @Param({"1536"})
+    private int dimension;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("{\"object\":\"list\",\"data\":[");
+        for (int i = 0; i < inputs; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"object\":\"embedding\",\"index\":").append(i).append(",\"embedding\":[");
+            for (int d = 0; d < dimension; d++) {
+                if (d > 0) sb.append(',');
+                sb.append(String.format(Locale.ROOT, "%.9f", random.nextGaussian() * 0.03));
+            }
+            sb.append("]}");
+        }
+        sb.append("],\"model\":\"text-embedding-3-small\",\"usage\":{\"prompt_tokens\":")
+                .append(inputs * 200).append(",\"total_tokens\":").append(inputs * 200).append("}}");
+        body = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<float[]> tree() throws IOException {
+        String text = new String(body, StandardCharsets.UTF_8);
+        JsonNode data = mapper.readTree(text).get("data");
+        List<float[]> result = new ArrayList<>(inputs);
+        for (int i = 0; i < inputs; i++) result.add(null);
+        for (JsonNode item : data) {
+            JsonNode values = item.get("embedding");
+            float[] embedding = new float[values.size()];
+            for (int d = 0; d < embedding.length; d++) {
+                embedding[d] = values.get(d).floatValue();
+            }
+            result.set(item.get("index").asInt(), embedding);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<float[]> streaming() throws IOException {
+        return OpenAiResponseReader.readEmbeddings(new ByteArrayInputStream(body), inputs).embeddings();
+    }
+}
@@ -0,0 +1,46 @@
+package com.earlywarning.common;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TextChunker#chunk} on generated Korean and English contracts; 40 clauses is about a 10-page
+ * contract, 400 a large framework agreement. Run with -prof gc for gc.alloc.rate.norm per document.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextChunkerBenchmark {
+
+    @Param({"ko", "en"})
+    private String language;
+
+    @Param({"40", "400"})
+    private int clauses;
+
+    private final TextChunker chunker = new TextChunker();
+    private String text;
+
+    @Setup
+    public void setUp() {
+        ReflectionTestUtils.setField(chunker, "chunkSize", 500);
+        text = "ko".equals(language) ? ContractFixtures.korean(clauses, 42) : ContractFixtures.english(clauses, 42);
+    }
+
+    @Benchmark
+    public List<TextChunker.Chunk> chunk() {
+        return chunker.chunk(text);
+    }
+
+    // What the analysis pipeline does: every chunk's text is needed for embedding and hashing
+    @Benchmark
+    public List<String> chunkToStrings() {
+        return chunker.chunk(text).stream().map(TextChunker.Chunk::toString).toList();
+    }
+}
@@ -0,0 +1,74 @@
+package com.earlywarning.common;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing an embedding through {@link VectorType}, in both wire formats: text ("[0.1,...]",
+ * when pgvector.binary-transfer is off or the vector type OID is unknown) and binary. Reads go through
+ * nullSafeGet with a ResultSet stub holding the raw column bytes; writes produce what the driver sends
+ * for a {@link PgVectorObject} parameter. Run with -prof gc for gc.alloc.rate.norm per vector.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VectorTypeBenchmark {
+
+    @Param({"1536"})
+    private int dimension;
+
+    private final VectorType type = new VectorType();
+    private float[] vector;
+    private ResultSet textColumn;
+    private ResultSet binaryColumn;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) vector[i] = (float) (random.nextGaussian() * 0.03);
+        textColumn = column(PgVectorCodec.toText(vector).getBytes(StandardCharsets.US_ASCII));
+        binaryColumn = column(PgVectorCodec.encode(vector));
+    }
+
+    @Benchmark
+    public float[] readText() throws SQLException {
+        return type.nullSafeGet(textColumn, 1, null, null);
+    }
+
+    @Benchmark
+    public float[] readBinary() throws SQLException {
+        return type.nullSafeGet(binaryColumn, 1, null, null);
+    }
+
+    @Benchmark
+    public String writeText() {
+        return new PgVectorObject(vector).getValue();
+    }
+
+    @Benchmark
+    public byte[] writeBinary() {
+        PgVectorObject value = new PgVectorObject(vector);
+        byte[] bytes = new byte[value.lengthInBytes()];
+        value.toBytes(bytes, 0);
+        return bytes;
+    }
+
+    private static ResultSet column(byte[] value) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getBytes")) return value;
+                    if (method.getName().equals("getStatement")) return null;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -1,6 +1,8 @@
 package com.earlywarning.alert;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -11,4 +13,7 @@ public interface AlertRepository extends JpaRepository<RegulationAlert, Long> {
     long countByUserEmailAndReadFalse(String email);
 
     void deleteByContractId(Long contractId);
+
+    @Query("SELECT a FROM RegulationAlert a JOIN FETCH a.regulation WHERE a.contract.id = :contractId ORDER BY a.id")
+    List<RegulationAlert> findWithRegulationByContractId(@Param("contractId") Long contractId);
 }
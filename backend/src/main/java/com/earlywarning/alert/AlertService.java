@@ -3,14 +3,12 @@ package com.earlywarning.alert;
 import com.earlywarning.contract.Contract;
 import com.earlywarning.contract.ContractRepository;
 import com.earlywarning.regulation.Regulation;
-import com.earlywarning.regulation.RegulationRepository;
 import com.earlywarning.common.OpenAiClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
 import java.util.List;
 
 @Slf4j
@@ -20,7 +18,6 @@ public class AlertService {
 
     private final AlertRepository alertRepository;
     private final ContractRepository contractRepository;
-    private final RegulationRepository regulationRepository;
     private final OpenAiClient openAiClient;
 
     public List<RegulationAlert> findByUserEmail(String email) {
@@ -56,12 +53,7 @@ public class AlertService {
 
         for (Contract contract : completedContracts) {
             try {
-                // Check similarity between regulation embedding and contract content embedding
-                String embeddingStr = Arrays.toString(regulation.getEmbedding());
-                List<Regulation> similar = regulationRepository.findSimilar(embeddingStr, 0.8);
-
-                // If regulation itself is found (it will be), this contract may be affected
-                // Create an alert for the contract's user
+                // This contract may be affected; create an alert for the contract's user
                 RegulationAlert alert = new RegulationAlert();
                 alert.setUser(contract.getUser());
                 alert.setContract(contract);
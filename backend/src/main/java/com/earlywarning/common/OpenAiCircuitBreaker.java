@@ -0,0 +1,117 @@
+package com.earlywarning.common;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Circuit breaker in front of the OpenAI API.
+ *
+ * Opens after a run of consecutive upstream failures (network errors, timeouts, 5xx), failing every call
+ * fast for the open duration. After that one probe request is let through: success closes the circuit,
+ * failure opens it again. Rate limiting (429) and client errors do not count, the upstream is reachable.
+ */
+@Slf4j
+@Component
+public class OpenAiCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public OpenAiCircuitBreaker(MeterRegistry meterRegistry,
+                                @Value("${openai.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                @Value("${openai.circuit-breaker.open-seconds:30}") long openSeconds) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = Duration.ofSeconds(openSeconds);
+        Gauge.builder("openai.circuit.state", this, b -> b.getState().ordinal()).register(meterRegistry);
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDuration.toNanos()) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        return state;
+    }
+
+    /**
+     * Whether new analyses should be started. False while the circuit is open or its half-open probe is
+     * in flight, so queued jobs stay queued instead of failing one after another.
+     */
+    public synchronized boolean allowsNewWork() {
+        State current = getState();
+        return current == State.CLOSED || (current == State.HALF_OPEN && !probeInFlight);
+    }
+
+    /**
+     * @throws CircuitOpenException if the call must fail fast
+     */
+    public synchronized void acquire() throws CircuitOpenException {
+        switch (getState()) {
+            case CLOSED -> { }
+            case HALF_OPEN -> {
+                if (probeInFlight) throw new CircuitOpenException(remaining());
+                probeInFlight = true;
+            }
+            case OPEN -> throw new CircuitOpenException(remaining());
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            log.info("OpenAI circuit closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            probeInFlight = false;
+            log.warn("OpenAI circuit opened after {} consecutive failures, failing fast for {}s",
+                    consecutiveFailures, openDuration.toSeconds());
+        }
+    }
+
+    /**
+     * Call outcome that is neither an upstream failure nor a success, e.g. a 429. Frees the half-open
+     * probe slot without changing the state.
+     */
+    public synchronized void recordIgnored() {
+        probeInFlight = false;
+    }
+
+    private Duration remaining() {
+        long elapsed = System.nanoTime() - openedAt;
+        return state == State.OPEN ? openDuration.minusNanos(elapsed) : Duration.ZERO;
+    }
+
+    public static class CircuitOpenException extends IOException {
+        private final Duration retryIn;
+
+        public CircuitOpenException(Duration retryIn) {
+            super("OpenAI circuit breaker is open, retry in " + Math.max(0, retryIn.toSeconds()) + "s");
+            this.retryIn = retryIn.isNegative() ? Duration.ZERO : retryIn;
+        }
+
+        public Duration getRetryIn() {
+            return retryIn;
+        }
+    }
+}
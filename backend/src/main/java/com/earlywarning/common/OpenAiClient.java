@@ -1,63 +1,618 @@
 package com.earlywarning.common;
 
+import com.earlywarning.embedding.EmbeddingCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 @Component
+@RequiredArgsConstructor
 public class OpenAiClient {
 
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(120, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final MediaType JSON = MediaType.parse("application/json");
+    // Budget reserved for a chat completion's output; corrected from the reported usage afterwards
+    private static final int COMPLETION_TOKENS = 1000;
+    // Output limit of the chat models, caps the max_tokens of batched requests
+    private static final int MAX_COMPLETION_TOKENS = 16384;
+    // Latency samples needed before the p95 is trusted as a hedging delay
+    private static final int HEDGE_MIN_SAMPLES = 20;
+
+    private static final Set<String> RISK_LEVELS = Set.of("HIGH", "MEDIUM", "LOW", "NONE");
+
+    // Shared by the single and the batched risk prompt
+    private static final String RISK_CRITERIA_EN = """
+            Risk level criteria:
+            - HIGH: Clear legal violation, or clauses that could render the contract void/voidable (e.g., violation of mandatory rules, deprivation of consumer rights, unfair terms)
+            - MEDIUM: Potential legal disputes but may be valid depending on interpretation (e.g., ambiguous liability limitations, unclear termination conditions, excessive penalties)
+            - LOW: Minor legal risks or improvement recommendations (e.g., insufficient notice period, unspecified jurisdiction, minor terminology inconsistencies)
+            - NONE: Matched with regulations but no actual legal risk
+
+            Rules:
+            1. "clause" must contain only the risky key sentence extracted verbatim from the text (copy from text, do not translate)
+            2. "reason" should concisely explain the violated regulation and risk reason in English
+            3. "suggestion" should provide an alternative clause that is legally safe, in English. Maintain the same tone as the original but remove risk elements
+            4. If there is no risk, set level to "NONE"
+            5. Judge risk levels carefully. Do not classify all risks as HIGH.""";
+
+    private static final String RISK_CRITERIA_KO = """
+            위험 수준 판단 기준:
+            - HIGH: 법률 위반이 명백하거나, 계약 무효/취소 사유가 될 수 있는 조항 (예: 강행규정 위반, 소비자 권리 박탈, 불공정 약관)
+            - MEDIUM: 법적 분쟁 가능성이 있으나 해석에 따라 유효할 수 있는 조항 (예: 모호한 책임 제한, 불명확한 해지 조건, 과도한 위약금)
+            - LOW: 법적 위험이 경미하거나 개선 권고 수준인 조항 (예: 통지 기간 부족, 관할법원 미지정, 사소한 용어 불일치)
+            - NONE: 관련 규제와 매칭되었으나 실제 법적 위험이 없는 경우
+
+            규칙:
+            1. "clause"에는 위험한 핵심 문장만 원문 그대로 추출하세요 (텍스트에서 복사, 번역하지 말 것)
+            2. "reason"은 한국어로 위반 규제명과 위험 사유를 간결하게 설명하세요
+            3. "suggestion"은 해당 조항을 법적으로 안전하게 수정한 대체 문구를 한국어로 제시하세요. 원문과 같은 어투를 유지하되 위험 요소를 제거하세요
+            4. 위험이 없으면 level을 "NONE"으로 하세요
+            5. 위험 수준을 신중하게 판단하세요. 모든 위험을 HIGH로 분류하지 마세요.""";
 
-    @Value("${openai.api-key}")
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final EmbeddingCache embeddingCache;
+    private final OpenAiRateGovernor rateGovernor;
+    private final OpenAiCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    private OkHttpClient client;
+    private ExecutorService dispatcherExecutor;
+    private Timer embeddingLatency;
+    private Counter retries;
+    private Counter hedges;
+
+    // Any OpenAI-compatible server (a proxy, vLLM, Ollama, or the stub used in tests) can stand in for OpenAI
+    @Value("${openai.base-url:https://api.openai.com}")
+    private String baseUrl;
+
+    // Optional for servers that do not authenticate
+    @Value("${openai.api-key:}")
     private String apiKey;
 
+    @Getter
     @Value("${openai.embedding-model}")
     private String embeddingModel;
 
+    @Getter
     @Value("${openai.chat-model}")
     private String chatModel;
 
+    @Value("${openai.embedding-batch-size:256}")
+    private int embeddingBatchSize;
+
+    @Value("${openai.embedding-batch-tokens:100000}")
+    private int embeddingBatchTokens;
+
+    @Value("${openai.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${openai.retry.base-backoff-ms:500}")
+    private long baseBackoffMillis;
+
+    @Value("${openai.retry.max-backoff-ms:20000}")
+    private long maxBackoffMillis;
+
+    @Value("${openai.timeout.embedding-seconds:30}")
+    private long embeddingTimeoutSeconds;
+
+    @Value("${openai.timeout.chat-seconds:90}")
+    private long chatTimeoutSeconds;
+
+    @Value("${openai.hedging.enabled:true}")
+    private boolean hedgingEnabled;
+
+    // Only small, latency-critical embedding batches are hedged; a large batch is slow because of its size,
+    // and duplicating it would double its token spend. The p95 is measured over these batches only.
+    @Value("${openai.hedging.max-inputs:16}")
+    private int hedgeMaxInputs;
+
+    @Value("${openai.http.max-requests:256}")
+    private int maxRequests;
+
+    @Value("${openai.http.max-idle-connections:16}")
+    private int maxIdleConnections;
+
+    @PostConstruct
+    void init() {
+        baseUrl = HttpUrl.get(baseUrl).toString().replaceAll("/+$", "");
+        // Async calls run on virtual threads, so hundreds can be in flight without pinning platform threads.
+        // api.openai.com negotiates HTTP/2, which multiplexes them over a few connections.
+        dispatcherExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("openai-http-", 0).factory());
+        Dispatcher dispatcher = new Dispatcher(dispatcherExecutor);
+        dispatcher.setMaxRequests(maxRequests);
+        // All requests go to a single host
+        dispatcher.setMaxRequestsPerHost(maxRequests);
+        client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, 5, TimeUnit.MINUTES))
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(120, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .build();
+
+        embeddingLatency = Timer.builder("openai.embedding.latency")
+                .publishPercentiles(0.95)
+                .register(meterRegistry);
+        retries = Counter.builder("openai.retries").register(meterRegistry);
+        hedges = Counter.builder("openai.hedged.requests").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        client.dispatcher().cancelAll();
+        dispatcherExecutor.shutdownNow();
+        client.connectionPool().evictAll();
+    }
+
     public float[] createEmbedding(String text) throws IOException {
+        return await(createEmbeddingAsync(text));
+    }
+
+    public CompletableFuture<float[]> createEmbeddingAsync(String text) {
+        return createEmbeddingsAsync(List.of(text)).thenApply(embeddings -> embeddings.get(0));
+    }
+
+    public List<float[]> createEmbeddings(List<String> texts) throws IOException {
+        return await(createEmbeddingsAsync(texts));
+    }
+
+    /**
+     * Embeds all texts with as few /v1/embeddings requests as possible.
+     * Texts already in the {@link EmbeddingCache} are not sent; the remaining distinct texts are
+     * packed into one request until either the input count or the estimated token budget is reached.
+     * Results are returned in input order.
+     */
+    public CompletableFuture<List<float[]>> createEmbeddingsAsync(List<String> texts) {
+        List<String> keys = texts.stream().map(t -> embeddingCache.key(embeddingModel, t)).toList();
+        Map<String, float[]> embeddings = embeddingCache.getAll(keys);
+
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!embeddings.containsKey(keys.get(i))) {
+                missing.putIfAbsent(keys.get(i), texts.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(keys.stream().map(embeddings::get).toList());
+        }
+
+        return fetchEmbeddingsAsync(new ArrayList<>(missing.values())).thenApply(fetched -> {
+            Map<String, float[]> fresh = new LinkedHashMap<>();
+            int i = 0;
+            for (String key : missing.keySet()) {
+                fresh.put(key, fetched.get(i++));
+            }
+            embeddingCache.putAll(embeddingModel, fresh);
+            embeddings.putAll(fresh);
+            return keys.stream().map(embeddings::get).toList();
+        });
+    }
+
+    private CompletableFuture<List<float[]>> fetchEmbeddingsAsync(List<String> texts) {
+        List<CompletableFuture<List<float[]>>> batches = new ArrayList<>();
+        int start = 0;
+        while (start < texts.size()) {
+            int end = start;
+            int tokens = 0;
+            while (end < texts.size() && end - start < embeddingBatchSize) {
+                int estimate = estimateTokens(texts.get(end));
+                if (end > start && tokens + estimate > embeddingBatchTokens) break;
+                tokens += estimate;
+                end++;
+            }
+            batches.add(requestEmbeddingsAsync(texts.subList(start, end)));
+            start = end;
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<float[]> embeddings = new ArrayList<>(texts.size());
+            batches.forEach(batch -> embeddings.addAll(batch.join()));
+            return embeddings;
+        });
+    }
+
+    private CompletableFuture<List<float[]>> requestEmbeddingsAsync(List<String> inputs) {
         Map<String, Object> body = Map.of(
                 "model", embeddingModel,
-                "input", text
+                "input", inputs
         );
+        int tokens = inputs.stream().mapToInt(OpenAiClient::estimateTokens).sum();
 
-        Request request = new Request.Builder()
-                .url("https://api.openai.com/v1/embeddings")
-                .header("Authorization", "Bearer " + apiKey)
-                .post(RequestBody.create(
-                        mapper.writeValueAsString(body),
-                        MediaType.parse("application/json")
-                ))
-                .build();
+        return postAsync("/v1/embeddings", body, RequestKind.EMBEDDING, tokens, inputs.size() <= hedgeMaxInputs, in -> {
+            OpenAiResponseReader.Embeddings response = OpenAiResponseReader.readEmbeddings(in, inputs.size());
+            return new Parsed<>(response.embeddings(), response.totalTokens());
+        });
+    }
+
+    /**
+     * Reads a successful response body as it streams in.
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        Parsed<T> read(InputStream body) throws IOException;
+    }
+
+    /**
+     * @param totalTokens usage reported by the response, -1 if unknown
+     */
+    private record Parsed<T>(T value, int totalTokens) {}
+
+    // Selects the model for rate limiting and the timeout of a request
+    private enum RequestKind { EMBEDDING, CHAT }
+
+    @FunctionalInterface
+    private interface ContentParser<T> {
+        T parse(JsonNode content) throws IOException;
+    }
+
+    /**
+     * Chat completion whose message content is the JSON object requested with response_format json_object.
+     */
+    private <T> ResponseReader<T> chatJson(ContentParser<T> parser) {
+        return in -> {
+            OpenAiResponseReader.ChatCompletion completion = OpenAiResponseReader.readChatCompletion(in);
+            return new Parsed<>(parser.parse(mapper.readTree(completion.content())), completion.totalTokens());
+        };
+    }
+
+    /**
+     * Sends a request, retrying rate limits (429), server errors (5xx) and network failures with
+     * jittered exponential backoff. Fails fast while the {@link OpenAiCircuitBreaker} is open.
+     * Cancelling the returned future cancels the HTTP call in flight.
+     *
+     * @param hedge send a second copy when the first is slower than the observed p95; only for
+     *              idempotent requests
+     */
+    private <T> CompletableFuture<T> postAsync(String path, Object body, RequestKind kind, int estimatedTokens,
+                                               boolean hedge, ResponseReader<T> reader) {
+        Request request;
+        try {
+            Request.Builder builder = new Request.Builder()
+                    .url(baseUrl + path)
+                    .post(RequestBody.create(mapper.writeValueAsBytes(body), JSON));
+            if (!apiKey.isBlank()) {
+                builder.header("Authorization", "Bearer " + apiKey);
+            }
+            request = builder.build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CallGroup calls = new CallGroup();
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) calls.cancelAll();
+        });
+        Attempt<T> attempt = new Attempt<>(path, request, kind, estimatedTokens, hedge && hedgingEnabled,
+                OpenAiRateGovernor.currentCaller(), calls, reader, result);
+        attempt.run(1);
+        return result;
+    }
 
-        try (Response response = client.newCall(request).execute()) {
-            JsonNode json = mapper.readTree(response.body().string());
-            JsonNode embeddingNode = json.get("data").get(0).get("embedding");
+    private final class Attempt<T> {
+        private final String path;
+        private final Request request;
+        private final RequestKind kind;
+        private final int estimatedTokens;
+        private final boolean hedge;
+        private final Object caller;
+        private final CallGroup calls;
+        private final ResponseReader<T> reader;
+        private final CompletableFuture<T> result;
+
+        Attempt(String path, Request request, RequestKind kind, int estimatedTokens, boolean hedge, Object caller,
+                CallGroup calls, ResponseReader<T> reader, CompletableFuture<T> result) {
+            this.path = path;
+            this.request = request;
+            this.kind = kind;
+            this.estimatedTokens = estimatedTokens;
+            this.hedge = hedge;
+            this.caller = caller;
+            this.calls = calls;
+            this.reader = reader;
+            this.result = result;
+        }
 
-            float[] embedding = new float[embeddingNode.size()];
-            for (int i = 0; i < embeddingNode.size(); i++) {
-                embedding[i] = embeddingNode.get(i).floatValue();
+        void run(int attempt) {
+            if (result.isDone()) return;
+            try {
+                circuitBreaker.acquire();
+            } catch (OpenAiCircuitBreaker.CircuitOpenException e) {
+                result.completeExceptionally(e);
+                return;
             }
-            return embedding;
+
+            CompletableFuture<T> response = hedge
+                    ? sendHedged(request, kind, estimatedTokens, caller, reader, calls)
+                    : send(request, kind, estimatedTokens, caller, reader, calls);
+            response.whenComplete((value, error) -> {
+                if (error == null) {
+                    circuitBreaker.recordSuccess();
+                    result.complete(value);
+                    return;
+                }
+
+                IOException e = unwrap(error);
+                if (calls.isCancelled()) {
+                    circuitBreaker.recordIgnored();
+                    result.completeExceptionally(e);
+                    return;
+                }
+                if (isUpstreamFailure(e)) {
+                    circuitBreaker.recordFailure();
+                } else if (e instanceof OpenAiException || e instanceof OpenAiResponseException) {
+                    // The upstream answered
+                    circuitBreaker.recordSuccess();
+                } else {
+                    circuitBreaker.recordIgnored();
+                }
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                Duration delay = backoff(attempt, e);
+                log.warn("OpenAI {} failed (attempt {}/{}): {}, retrying in {} ms",
+                        path, attempt, maxAttempts, e.getMessage(), delay.toMillis());
+                retries.increment();
+                CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> run(attempt + 1));
+            });
         }
     }
 
+    /**
+     * Sends one request once the {@link OpenAiRateGovernor} admits it and reports the outcome back.
+     * Non-2xx responses complete exceptionally with {@link OpenAiException}.
+     *
+     * @param groups the call joins each group so that it can be cancelled; it is not sent if one is already cancelled
+     */
+    private <T> CompletableFuture<T> send(Request request, RequestKind kind, int estimatedTokens, Object caller,
+                                          ResponseReader<T> reader, CallGroup... groups) {
+        return rateGovernor.acquireAsync(caller, kind == RequestKind.EMBEDDING ? embeddingModel : chatModel, estimatedTokens).thenCompose(permit -> {
+            CompletableFuture<T> response = new CompletableFuture<>();
+            Call call = client.newCall(request);
+            call.timeout().timeout(kind == RequestKind.EMBEDDING ? embeddingTimeoutSeconds : chatTimeoutSeconds,
+                    TimeUnit.SECONDS);
+            for (CallGroup group : groups) {
+                if (!group.register(call)) {
+                    permit.release();
+                    return CompletableFuture.failedFuture(new IOException("Canceled"));
+                }
+            }
+
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    permit.release();
+                    response.completeExceptionally(e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response r) {
+                    try (r) {
+                        response.complete(handleResponse(r, permit, reader));
+                    } catch (IOException | RuntimeException e) {
+                        response.completeExceptionally(e);
+                    } finally {
+                        // No-op if the outcome was already reported
+                        permit.release();
+                    }
+                }
+            });
+            return response;
+        });
+    }
+
+    private <T> T handleResponse(Response response, OpenAiRateGovernor.Permit permit, ResponseReader<T> reader)
+            throws IOException {
+        if (!response.isSuccessful()) {
+            String payload = response.body().string();
+            Duration retryAfter = retryAfter(response.headers());
+            if (response.code() == 429) {
+                permit.rateLimited(response.headers(), retryAfter);
+            } else {
+                permit.release();
+            }
+            JsonNode error = parseError(payload);
+            throw new OpenAiException(response.code(), error.path("code").asText(null),
+                    error.path("message").asText(payload.length() > 200 ? payload.substring(0, 200) : payload),
+                    retryAfter);
+        }
+        Parsed<T> parsed;
+        try {
+            parsed = reader.read(response.body().byteStream());
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Other IOExceptions are the connection failing while the body streams in
+            throw new OpenAiResponseException("Unreadable OpenAI response: " + e.getMessage(), e);
+        }
+        permit.succeeded(response.headers(), parsed.totalTokens());
+        return parsed.value();
+    }
+
+    /**
+     * Sends the request and, if no response has arrived within the p95 latency observed for this
+     * endpoint, a second identical one. The first successful response wins and the other call is cancelled.
+     */
+    private <T> CompletableFuture<T> sendHedged(Request request, RequestKind kind, int estimatedTokens, Object caller,
+                                                ResponseReader<T> reader, CallGroup calls) {
+        Duration hedgeAfter = hedgeDelay();
+        long start = System.nanoTime();
+        if (hedgeAfter == null) {
+            return send(request, kind, estimatedTokens, caller, reader, calls).whenComplete((value, e) -> {
+                if (e == null) embeddingLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            });
+        }
+
+        CallGroup race = new CallGroup();
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        Runnable attempt = () -> send(request, kind, estimatedTokens, caller, reader, calls, race).whenComplete((value, e) -> {
+            if (e == null) {
+                if (winner.complete(value)) {
+                    embeddingLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            } else if (failures.incrementAndGet() == 2 || !isRetryable(unwrap(e))) {
+                winner.completeExceptionally(e);
+            }
+        });
+
+        attempt.run();
+        CompletableFuture.delayedExecutor(hedgeAfter.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (!winner.isDone()) {
+                hedges.increment();
+                attempt.run();
+            }
+        });
+        return winner.whenComplete((value, e) -> race.cancelAll());
+    }
+
+    /**
+     * Calls racing for the same response; once cancelled, late joiners are rejected before they are sent.
+     */
+    private static final class CallGroup {
+        private final List<Call> calls = new ArrayList<>(2);
+        private boolean cancelled;
+
+        synchronized boolean register(Call call) {
+            if (cancelled) return false;
+            calls.add(call);
+            return true;
+        }
+
+        synchronized void cancelAll() {
+            cancelled = true;
+            calls.forEach(Call::cancel);
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private Duration hedgeDelay() {
+        if (embeddingLatency.count() < HEDGE_MIN_SAMPLES) return null;
+        for (ValueAtPercentile p : embeddingLatency.takeSnapshot().percentileValues()) {
+            if (p.percentile() == 0.95 && p.value(TimeUnit.NANOSECONDS) > 0) {
+                return Duration.ofNanos((long) p.value(TimeUnit.NANOSECONDS));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Blocks for the result of an async call, rethrowing its failure as thrown by the synchronous API.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for OpenAI response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * Anything but an IOException was thrown on this side while handling the call, not by the network.
+     */
+    private static IOException unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException io ? io
+                : new OpenAiResponseException("Could not handle OpenAI response: " + cause, cause);
+    }
+
+    private static boolean isUpstreamFailure(IOException e) {
+        if (e instanceof OpenAiCircuitBreaker.CircuitOpenException || e instanceof OpenAiResponseException) return false;
+        if (e instanceof OpenAiException oe) return oe.getStatusCode() >= 500;
+        // Network errors and timeouts
+        return true;
+    }
+
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof OpenAiCircuitBreaker.CircuitOpenException || e instanceof OpenAiResponseException) return false;
+        if (e instanceof OpenAiException oe) {
+            return (oe.isRateLimited() && !"insufficient_quota".equals(oe.getErrorCode())) || oe.getStatusCode() >= 500;
+        }
+        return true;
+    }
+
+    /**
+     * Full jitter: uniform in [0, base * 2^(attempt-1)], capped, but never shorter than a server-requested delay.
+     */
+    private Duration backoff(int attempt, IOException e) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (e instanceof OpenAiException oe && oe.getRetryAfter() != null) {
+            delay = Math.max(delay, oe.getRetryAfter().toMillis());
+        }
+        return Duration.ofMillis(delay);
+    }
+
+    private JsonNode parseError(String payload) {
+        try {
+            return mapper.readTree(payload).path("error");
+        } catch (IOException e) {
+            // Not JSON, e.g. an HTML error page from a proxy
+            return mapper.missingNode();
+        }
+    }
+
+    private static Duration retryAfter(Headers headers) {
+        String seconds = headers.get("retry-after");
+        if (seconds != null) {
+            try {
+                return Duration.ofMillis((long) (Double.parseDouble(seconds) * 1000));
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form, fall through to the rate limit reset headers
+            }
+        }
+        Duration requests = OpenAiRateGovernor.parseDuration(headers.get("x-ratelimit-reset-requests"));
+        Duration tokens = OpenAiRateGovernor.parseDuration(headers.get("x-ratelimit-reset-tokens"));
+        if (requests == null) return tokens;
+        if (tokens == null) return requests;
+        return requests.compareTo(tokens) >= 0 ? requests : tokens;
+    }
+
+    // Rough upper bound: Korean text is close to one token per character, English far less.
+    private static int estimateTokens(String text) {
+        return Math.max(1, text.length());
+    }
+
     public RiskAnalysis analyzeRisk(String clause, List<String> regulations, String language) throws IOException {
+        return await(analyzeRiskAsync(clause, regulations, language));
+    }
+
+    public CompletableFuture<RiskAnalysis> analyzeRiskAsync(String clause, List<String> regulations, String language) {
         String prompt;
         if ("en".equals(language)) {
             prompt = """
@@ -67,22 +622,11 @@ public class OpenAiClient {
 
                     Related regulations: %s
 
-                    Risk level criteria:
-                    - HIGH: Clear legal violation, or clauses that could render the contract void/voidable (e.g., violation of mandatory rules, deprivation of consumer rights, unfair terms)
-                    - MEDIUM: Potential legal disputes but may be valid depending on interpretation (e.g., ambiguous liability limitations, unclear termination conditions, excessive penalties)
-                    - LOW: Minor legal risks or improvement recommendations (e.g., insufficient notice period, unspecified jurisdiction, minor terminology inconsistencies)
-                    - NONE: Matched with regulations but no actual legal risk
-
-                    Rules:
-                    1. "clause" must contain only the risky key sentence extracted verbatim from the text (copy from text, do not translate)
-                    2. "reason" should concisely explain the violated regulation and risk reason in English
-                    3. "suggestion" should provide an alternative clause that is legally safe, in English. Maintain the same tone as the original but remove risk elements
-                    4. If there is no risk, set level to "NONE"
-                    5. Judge risk levels carefully. Do not classify all risks as HIGH.
+                    %s
 
                     Respond in the following JSON format:
                     {"clause": "risky sentence extracted from text", "level": "HIGH|MEDIUM|LOW|NONE", "reason": "English explanation", "suggestion": "suggested revision"}
-                    """.formatted(clause, String.join(", ", regulations));
+                    """.formatted(clause, String.join(", ", regulations), RISK_CRITERIA_EN);
         } else {
             prompt = """
                     다음 계약서 텍스트에서 법적 위험이 있는 부분을 분석하세요:
@@ -91,22 +635,11 @@ public class OpenAiClient {
 
                     관련 규제: %s
 
-                    위험 수준 판단 기준:
-                    - HIGH: 법률 위반이 명백하거나, 계약 무효/취소 사유가 될 수 있는 조항 (예: 강행규정 위반, 소비자 권리 박탈, 불공정 약관)
-                    - MEDIUM: 법적 분쟁 가능성이 있으나 해석에 따라 유효할 수 있는 조항 (예: 모호한 책임 제한, 불명확한 해지 조건, 과도한 위약금)
-                    - LOW: 법적 위험이 경미하거나 개선 권고 수준인 조항 (예: 통지 기간 부족, 관할법원 미지정, 사소한 용어 불일치)
-                    - NONE: 관련 규제와 매칭되었으나 실제 법적 위험이 없는 경우
-
-                    규칙:
-                    1. "clause"에는 위험한 핵심 문장만 원문 그대로 추출하세요 (텍스트에서 복사, 번역하지 말 것)
-                    2. "reason"은 한국어로 위반 규제명과 위험 사유를 간결하게 설명하세요
-                    3. "suggestion"은 해당 조항을 법적으로 안전하게 수정한 대체 문구를 한국어로 제시하세요. 원문과 같은 어투를 유지하되 위험 요소를 제거하세요
-                    4. 위험이 없으면 level을 "NONE"으로 하세요
-                    5. 위험 수준을 신중하게 판단하세요. 모든 위험을 HIGH로 분류하지 마세요.
+                    %s
 
                     다음 JSON 형식으로 응답하세요:
                     {"clause": "원문에서 추출한 위험 문장", "level": "HIGH|MEDIUM|LOW|NONE", "reason": "한국어 설명", "suggestion": "수정 제안 문구"}
-                    """.formatted(clause, String.join(", ", regulations));
+                    """.formatted(clause, String.join(", ", regulations), RISK_CRITERIA_KO);
         }
 
         Map<String, Object> body = Map.of(
@@ -115,35 +648,182 @@ public class OpenAiClient {
                 "response_format", Map.of("type", "json_object")
         );
 
-        Request request = new Request.Builder()
-                .url("https://api.openai.com/v1/chat/completions")
-                .header("Authorization", "Bearer " + apiKey)
-                .post(RequestBody.create(
-                        mapper.writeValueAsString(body),
-                        MediaType.parse("application/json")
-                ))
-                .build();
+        return postAsync("/v1/chat/completions", body, RequestKind.CHAT, estimateTokens(prompt) + COMPLETION_TOKENS, false,
+                chatJson(OpenAiClient::parseRiskAnalysis));
+    }
 
-        try (Response response = client.newCall(request).execute()) {
-            JsonNode json = mapper.readTree(response.body().string());
-            String content = json.get("choices").get(0).get("message").get("content").asText();
-            JsonNode result = mapper.readTree(content);
+    private static RiskAnalysis parseRiskAnalysis(JsonNode result) throws OpenAiResponseException {
+        String level = normalizeRiskLevel(result.path("level").asText(null));
+        if (level == null || !result.hasNonNull("clause") || !result.hasNonNull("reason")) {
+            throw new OpenAiResponseException("Malformed risk verdict: " + result);
+        }
+        String suggestion = result.has("suggestion") && !result.get("suggestion").isNull()
+                ? result.get("suggestion").asText() : null;
+
+        return new RiskAnalysis(
+                result.get("clause").asText(),
+                level,
+                result.get("reason").asText(),
+                suggestion
+        );
+    }
 
-            String suggestion = result.has("suggestion") && !result.get("suggestion").isNull()
-                    ? result.get("suggestion").asText() : null;
+    /**
+     * @return the level in upper case if it is HIGH, MEDIUM, LOW or NONE, otherwise null
+     */
+    public static String normalizeRiskLevel(String level) {
+        if (level == null) return null;
+        String normalized = level.strip().toUpperCase(Locale.ROOT);
+        return RISK_LEVELS.contains(normalized) ? normalized : null;
+    }
 
-            return new RiskAnalysis(
-                    result.get("clause").asText(),
-                    result.get("level").asText(),
-                    result.get("reason").asText(),
-                    suggestion
-            );
+    public record RiskAnalysis(String clause, String level, String reason, String suggestion) {}
+
+    /**
+     * One contract text for {@link #analyzeRiskBatch}, with the "name: description" of each regulation it matched.
+     */
+    public record RiskItem(String clause, List<String> regulations) {
+        /**
+         * Prompt tokens this item adds to a batch, estimated the same way as for every other request.
+         */
+        public int estimatedTokens() {
+            return estimateTokens(clause) + regulations.stream().mapToInt(OpenAiClient::estimateTokens).sum();
         }
     }
 
-    public record RiskAnalysis(String clause, String level, String reason, String suggestion) {}
+    public List<RiskAnalysis> analyzeRiskBatch(List<RiskItem> items, String language) throws IOException {
+        return await(analyzeRiskBatchAsync(items, language));
+    }
+
+    /**
+     * Evaluates several contract texts in one chat completion. The instructions are sent once, each distinct
+     * regulation is listed once and referenced by the texts that matched it, and the model returns one verdict
+     * per text id. Verdicts are returned in item order; a text the model skipped or answered malformed is
+     * evaluated on its own with {@link #analyzeRiskAsync}, and so is every text when the whole answer is
+     * unreadable, e.g. cut off at max_tokens.
+     */
+    public CompletableFuture<List<RiskAnalysis>> analyzeRiskBatchAsync(List<RiskItem> items, String language) {
+        if (items.size() == 1) {
+            RiskItem item = items.get(0);
+            return analyzeRiskAsync(item.clause(), item.regulations(), language).thenApply(List::of);
+        }
+
+        Map<String, Integer> regulationIds = new LinkedHashMap<>();
+        StringBuilder texts = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            RiskItem item = items.get(i);
+            List<String> refs = item.regulations().stream()
+                    .map(r -> "R" + regulationIds.computeIfAbsent(r, k -> regulationIds.size() + 1))
+                    .toList();
+            texts.append('[').append(i + 1).append("] \"").append(item.clause()).append("\"\n")
+                    .append("en".equals(language) ? "Related regulations: " : "관련 규제: ")
+                    .append(String.join(", ", refs)).append("\n\n");
+        }
+        StringBuilder regulations = new StringBuilder();
+        regulationIds.forEach((regulation, id) ->
+                regulations.append("[R").append(id).append("] ").append(regulation).append('\n'));
+
+        String prompt;
+        if ("en".equals(language)) {
+            prompt = """
+                    Analyze each of the following %d contract texts for legal risks.
+
+                    Regulations:
+                    %s
+                    Texts:
+                    %s%s
+                    6. Evaluate each text independently, against its own related regulations only
+                    7. Return exactly one result per text, with "id" set to the text number
+
+                    Respond in the following JSON format:
+                    {"results": [{"id": 1, "clause": "risky sentence extracted from text", "level": "HIGH|MEDIUM|LOW|NONE", "reason": "English explanation", "suggestion": "suggested revision"}]}
+                    """.formatted(items.size(), regulations, texts, RISK_CRITERIA_EN);
+        } else {
+            prompt = """
+                    다음 %d개의 계약서 텍스트 각각에서 법적 위험이 있는 부분을 분석하세요.
+
+                    규제 목록:
+                    %s
+                    텍스트:
+                    %s%s
+                    6. 각 텍스트는 해당 텍스트의 관련 규제만 기준으로 독립적으로 판단하세요
+                    7. 텍스트마다 정확히 하나의 결과를 반환하고, "id"에는 텍스트 번호를 넣으세요
+
+                    다음 JSON 형식으로 응답하세요:
+                    {"results": [{"id": 1, "clause": "원문에서 추출한 위험 문장", "level": "HIGH|MEDIUM|LOW|NONE", "reason": "한국어 설명", "suggestion": "수정 제안 문구"}]}
+                    """.formatted(items.size(), regulations, texts, RISK_CRITERIA_KO);
+        }
+
+        int completionTokens = Math.min(COMPLETION_TOKENS * items.size(), MAX_COMPLETION_TOKENS);
+        Map<String, Object> body = Map.of(
+                "model", chatModel,
+                "messages", List.of(Map.of("role", "user", "content", prompt)),
+                "response_format", Map.of("type", "json_object"),
+                "max_tokens", completionTokens
+        );
+
+        Object caller = OpenAiRateGovernor.currentCaller();
+        return postAsync("/v1/chat/completions", body, RequestKind.CHAT,
+                estimateTokens(prompt) + completionTokens, false,
+                chatJson(result -> {
+                    RiskAnalysis[] verdicts = new RiskAnalysis[items.size()];
+                    for (JsonNode node : result.path("results")) {
+                        int id = node.path("id").asInt(0);
+                        if (id < 1 || id > items.size() || !node.hasNonNull("clause")
+                                || normalizeRiskLevel(node.path("level").asText(null)) == null
+                                || !node.hasNonNull("reason")) {
+                            continue;
+                        }
+                        verdicts[id - 1] = parseRiskAnalysis(node);
+                    }
+                    return verdicts;
+                }))
+                .exceptionallyCompose(e -> {
+                    IOException cause = unwrap(e);
+                    if (!(cause instanceof OpenAiResponseException)) return CompletableFuture.failedFuture(cause);
+                    log.warn("Batched risk analysis of {} texts failed, evaluating them separately: {}",
+                            items.size(), cause.getMessage());
+                    return CompletableFuture.completedFuture(new RiskAnalysis[items.size()]);
+                })
+                .thenCompose(verdicts -> {
+                    List<CompletableFuture<RiskAnalysis>> all = new ArrayList<>(items.size());
+                    int missing = 0;
+                    for (int i = 0; i < items.size(); i++) {
+                        if (verdicts[i] != null) {
+                            all.add(CompletableFuture.completedFuture(verdicts[i]));
+                            continue;
+                        }
+                        missing++;
+                        RiskItem item = items.get(i);
+                        all.add(callAsAsync(caller, () -> analyzeRiskAsync(item.clause(), item.regulations(), language)));
+                    }
+                    if (missing > 0 && missing < items.size()) {
+                        log.warn("Batched risk analysis returned no verdict for {} of {} texts, evaluating them separately",
+                                missing, items.size());
+                    }
+                    return CompletableFuture.allOf(all.toArray(new CompletableFuture[0]))
+                            .thenApply(v -> all.stream().map(CompletableFuture::join).toList());
+                });
+    }
+
+    /**
+     * Starts an async request on behalf of the given rate governor caller, for requests issued from a
+     * callback thread that no longer carries the original caller.
+     */
+    private static <T> CompletableFuture<T> callAsAsync(Object caller, Callable<CompletableFuture<T>> request) {
+        try {
+            return OpenAiRateGovernor.callAs(caller, request);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
     public NegotiationGuide generateNegotiationGuide(String clause, String level, String reason, String suggestion, String language) throws IOException {
+        return await(generateNegotiationGuideAsync(clause, level, reason, suggestion, language));
+    }
+
+    public CompletableFuture<NegotiationGuide> generateNegotiationGuideAsync(String clause, String level, String reason,
+                                                                         String suggestion, String language) {
         String prompt;
         if ("en".equals(language)) {
             prompt = """
@@ -203,34 +883,22 @@ public class OpenAiClient {
                 "response_format", Map.of("type", "json_object")
         );
 
-        Request request = new Request.Builder()
-                .url("https://api.openai.com/v1/chat/completions")
-                .header("Authorization", "Bearer " + apiKey)
-                .post(RequestBody.create(
-                        mapper.writeValueAsString(body),
-                        MediaType.parse("application/json")
-                ))
-                .build();
-
-        try (Response response = client.newCall(request).execute()) {
-            JsonNode json = mapper.readTree(response.body().string());
-            String content = json.get("choices").get(0).get("message").get("content").asText();
-            JsonNode result = mapper.readTree(content);
+        return postAsync("/v1/chat/completions", body, RequestKind.CHAT, estimateTokens(prompt) + COMPLETION_TOKENS, false,
+                chatJson(result -> {
+                Perspective gapPerspective = parsePerspective(result.get("gap_perspective"));
+                Perspective eulPerspective = parsePerspective(result.get("eul_perspective"));
 
-            Perspective gapPerspective = parsePerspective(result.get("gap_perspective"));
-            Perspective eulPerspective = parsePerspective(result.get("eul_perspective"));
-
-            List<String> alternativeClauses = new java.util.ArrayList<>();
-            if (result.has("alternative_clauses")) {
-                for (JsonNode node : result.get("alternative_clauses")) {
-                    alternativeClauses.add(node.asText());
+                List<String> alternativeClauses = new java.util.ArrayList<>();
+                if (result.has("alternative_clauses")) {
+                    for (JsonNode node : result.get("alternative_clauses")) {
+                        alternativeClauses.add(node.asText());
+                    }
                 }
-            }
 
-            String riskIfUnchanged = result.has("risk_if_unchanged") ? result.get("risk_if_unchanged").asText() : "";
+                String riskIfUnchanged = result.has("risk_if_unchanged") ? result.get("risk_if_unchanged").asText() : "";
 
-            return new NegotiationGuide(gapPerspective, eulPerspective, alternativeClauses, riskIfUnchanged);
-        }
+                return new NegotiationGuide(gapPerspective, eulPerspective, alternativeClauses, riskIfUnchanged);
+                }));
     }
 
     private Perspective parsePerspective(JsonNode node) {
@@ -0,0 +1,43 @@
+package com.earlywarning.common;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Non-2xx response from the OpenAI API.
+ */
+public class OpenAiException extends IOException {
+
+    private final int statusCode;
+    private final String errorCode;
+    private final Duration retryAfter;
+
+    public OpenAiException(int statusCode, String errorCode, String message, Duration retryAfter) {
+        super("OpenAI API returned " + statusCode + ": " + message);
+        this.statusCode = statusCode;
+        this.errorCode = errorCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * error.code from the response body, e.g. "insufficient_quota", or null.
+     */
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Delay requested by the server, or null if it did not send one.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public boolean isRateLimited() {
+        return statusCode == 429;
+    }
+}
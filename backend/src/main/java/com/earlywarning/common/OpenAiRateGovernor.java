@@ -0,0 +1,382 @@
+package com.earlywarning.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shared admission control for OpenAI requests, one budget per model.
+ *
+ * A request is admitted only when the model has a request and an estimated token budget left
+ * (token buckets refilled continuously at the per-minute limits) and fewer requests in flight than
+ * the current concurrency limit. Limits start from configuration and are replaced by the
+ * x-ratelimit-* headers of each response. The concurrency limit adapts AIMD-style: +1 per limit's
+ * worth of successful requests, halved on a 429. Waiting requests are queued per caller and admitted
+ * round-robin, so one large contract cannot starve the others.
+ */
+@Slf4j
+@Component
+public class OpenAiRateGovernor {
+
+    private static final String DEFAULT_CALLER = "default";
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+    private static final ThreadLocal<Object> CALLER = new ThreadLocal<>();
+
+    private final Map<String, ModelLimiter> limiters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "openai-governor");
+        t.setDaemon(true);
+        return t;
+    });
+    private final MeterRegistry meterRegistry;
+    private final Timer waitTimer;
+    private final int requestsPerMinute;
+    private final int tokensPerMinute;
+    private final int initialConcurrency;
+    private final int maxConcurrency;
+
+    public OpenAiRateGovernor(MeterRegistry meterRegistry,
+                              @Value("${openai.rate-limit.requests-per-minute:500}") int requestsPerMinute,
+                              @Value("${openai.rate-limit.tokens-per-minute:200000}") int tokensPerMinute,
+                              @Value("${openai.rate-limit.initial-concurrency:8}") int initialConcurrency,
+                              @Value("${openai.rate-limit.max-concurrency:64}") int maxConcurrency) {
+        this.meterRegistry = meterRegistry;
+        this.requestsPerMinute = requestsPerMinute;
+        this.tokensPerMinute = tokensPerMinute;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.initialConcurrency = Math.min(Math.max(1, initialConcurrency), this.maxConcurrency);
+        this.waitTimer = Timer.builder("openai.governor.wait").register(meterRegistry);
+    }
+
+    /**
+     * Runs the task with the given fairness key; requests it makes on this thread are queued under
+     * that caller rather than the shared default queue.
+     */
+    public static <T> T callAs(Object caller, Callable<T> task) throws Exception {
+        Object previous = CALLER.get();
+        CALLER.set(caller);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) CALLER.remove();
+            else CALLER.set(previous);
+        }
+    }
+
+    /**
+     * Fairness key of the current thread, to hand over to work continued on another thread.
+     */
+    public static Object currentCaller() {
+        return CALLER.get();
+    }
+
+    /**
+     * Completes once a request to the model may be sent. The permit must be released exactly once.
+     */
+    public CompletableFuture<Permit> acquireAsync(String model, int estimatedTokens) {
+        return acquireAsync(CALLER.get(), model, estimatedTokens);
+    }
+
+    /**
+     * @param caller fairness key, null for the shared default queue
+     */
+    public CompletableFuture<Permit> acquireAsync(Object caller, String model, int estimatedTokens) {
+        return limiter(model).enqueue(caller != null ? caller : DEFAULT_CALLER, Math.max(1, estimatedTokens));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private ModelLimiter limiter(String model) {
+        return limiters.computeIfAbsent(model, ModelLimiter::new);
+    }
+
+    public final class Permit {
+        private final ModelLimiter limiter;
+        private final int estimatedTokens;
+        private boolean released;
+
+        private Permit(ModelLimiter limiter, int estimatedTokens) {
+            this.limiter = limiter;
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        /**
+         * @param usedTokens tokens reported in the response's usage, or -1 if unknown
+         */
+        public void succeeded(Headers headers, int usedTokens) {
+            if (markReleased()) limiter.onSuccess(this, headers, usedTokens);
+        }
+
+        public void rateLimited(Headers headers, Duration retryAfter) {
+            if (markReleased()) limiter.onRateLimited(headers, retryAfter);
+        }
+
+        /**
+         * Releases the permit without adjusting limits, e.g. on a network or server error.
+         */
+        public void release() {
+            if (markReleased()) limiter.onRelease();
+        }
+
+        private synchronized boolean markReleased() {
+            if (released) return false;
+            released = true;
+            return true;
+        }
+    }
+
+    private record Waiter(int tokens, CompletableFuture<Permit> future, long enqueuedAt) {}
+
+    private final class ModelLimiter {
+        private final String model;
+        private final Map<Object, ArrayDeque<Waiter>> queues = new LinkedHashMap<>();
+        private final ArrayDeque<Object> rotation = new ArrayDeque<>();
+        private final Counter successes;
+        private final Counter throttled;
+
+        private double requestCapacity;
+        private double tokenCapacity;
+        private double requestBudget;
+        private double tokenBudget;
+        private long lastRefill = System.nanoTime();
+        private long blockedUntil = lastRefill;
+        private long lastDecrease = lastRefill - TimeUnit.SECONDS.toNanos(2);
+
+        private double concurrencyLimit = initialConcurrency;
+        private int inFlight;
+        private int queued;
+        private ScheduledFuture<?> pendingDrain;
+
+        ModelLimiter(String model) {
+            this.model = model;
+            this.requestCapacity = requestsPerMinute;
+            this.tokenCapacity = tokensPerMinute;
+            this.requestBudget = requestCapacity;
+            this.tokenBudget = tokenCapacity;
+            this.successes = Counter.builder("openai.requests").tag("model", model).tag("outcome", "success")
+                    .register(meterRegistry);
+            this.throttled = Counter.builder("openai.requests").tag("model", model).tag("outcome", "rate_limited")
+                    .register(meterRegistry);
+            Gauge.builder("openai.governor.concurrency.limit", this, l -> l.concurrencyLimit)
+                    .tag("model", model).register(meterRegistry);
+            Gauge.builder("openai.governor.in-flight", this, l -> l.inFlight)
+                    .tag("model", model).register(meterRegistry);
+            Gauge.builder("openai.governor.queued", this, l -> l.queued)
+                    .tag("model", model).register(meterRegistry);
+        }
+
+        CompletableFuture<Permit> enqueue(Object caller, int tokens) {
+            CompletableFuture<Permit> future = new CompletableFuture<>();
+            synchronized (this) {
+                ArrayDeque<Waiter> queue = queues.get(caller);
+                if (queue == null) {
+                    queue = new ArrayDeque<>();
+                    queues.put(caller, queue);
+                    rotation.addLast(caller);
+                }
+                queue.addLast(new Waiter(tokens, future, System.nanoTime()));
+                queued++;
+            }
+            drain();
+            return future;
+        }
+
+        void onSuccess(Permit permit, Headers headers, int usedTokens) {
+            successes.increment();
+            synchronized (this) {
+                inFlight--;
+                // Additive increase: about +1 per concurrencyLimit successful requests
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1.0 / concurrencyLimit);
+                if (usedTokens >= 0) {
+                    tokenBudget = Math.min(tokenCapacity, tokenBudget + permit.estimatedTokens - usedTokens);
+                }
+                applyHeaders(headers);
+            }
+            drain();
+        }
+
+        void onRateLimited(Headers headers, Duration retryAfter) {
+            throttled.increment();
+            synchronized (this) {
+                inFlight--;
+                long now = System.nanoTime();
+                // Multiplicative decrease, at most once per second so a burst of 429s from
+                // requests already in flight counts as a single congestion signal
+                if (now - lastDecrease > TimeUnit.SECONDS.toNanos(1)) {
+                    concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+                    lastDecrease = now;
+                    log.warn("OpenAI rate limit hit for {}, concurrency limit reduced to {}",
+                            model, (int) concurrencyLimit);
+                }
+                applyHeaders(headers);
+                Duration pause = retryAfter != null ? retryAfter : Duration.ofSeconds(1);
+                blockedUntil = Math.max(blockedUntil, now + pause.toNanos());
+            }
+            drain();
+        }
+
+        void onRelease() {
+            synchronized (this) {
+                inFlight--;
+            }
+            drain();
+        }
+
+        private void applyHeaders(Headers headers) {
+            if (headers == null) return;
+            long now = System.nanoTime();
+            Long requestLimit = parseLong(headers.get("x-ratelimit-limit-requests"));
+            Long tokenLimit = parseLong(headers.get("x-ratelimit-limit-tokens"));
+            Long remainingRequests = parseLong(headers.get("x-ratelimit-remaining-requests"));
+            Long remainingTokens = parseLong(headers.get("x-ratelimit-remaining-tokens"));
+
+            if (requestLimit != null && requestLimit > 0) requestCapacity = requestLimit;
+            if (tokenLimit != null && tokenLimit > 0) tokenCapacity = tokenLimit;
+            // The provider's view already includes requests admitted by other instances
+            if (remainingRequests != null) {
+                requestBudget = Math.min(requestBudget, remainingRequests);
+                if (remainingRequests == 0) {
+                    block(now, headers.get("x-ratelimit-reset-requests"));
+                }
+            }
+            if (remainingTokens != null) {
+                tokenBudget = Math.min(tokenBudget, remainingTokens);
+                if (remainingTokens == 0) {
+                    block(now, headers.get("x-ratelimit-reset-tokens"));
+                }
+            }
+        }
+
+        private void block(long now, String reset) {
+            Duration d = parseDuration(reset);
+            if (d != null) blockedUntil = Math.max(blockedUntil, now + d.toNanos());
+        }
+
+        private void refill(long now) {
+            double minutes = (now - lastRefill) / 60e9;
+            lastRefill = now;
+            requestBudget = Math.min(requestCapacity, requestBudget + minutes * requestCapacity);
+            tokenBudget = Math.min(tokenCapacity, tokenBudget + minutes * tokenCapacity);
+        }
+
+        /**
+         * Admits as many waiters as the budgets allow, visiting callers round-robin. If the head of the
+         * line is waiting on a budget rather than on concurrency, schedules another pass for when it refills.
+         */
+        private void drain() {
+            List<Map.Entry<Waiter, Permit>> admitted = new ArrayList<>();
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                long waitNanos = 0;
+                while (!rotation.isEmpty()) {
+                    Object caller = rotation.peekFirst();
+                    ArrayDeque<Waiter> queue = queues.get(caller);
+                    Waiter head = queue.peekFirst();
+                    if (head.future().isDone()) {
+                        // Cancelled by a caller that stopped waiting
+                        queue.pollFirst();
+                        queued--;
+                        removeIfEmpty(caller, queue);
+                        continue;
+                    }
+                    if (inFlight >= (int) concurrencyLimit) break;
+
+                    // A request larger than the whole bucket is admitted once the bucket is full
+                    double tokens = Math.min(head.tokens(), tokenCapacity);
+                    if (now < blockedUntil) {
+                        waitNanos = blockedUntil - now;
+                        break;
+                    }
+                    if (requestBudget < 1 || tokenBudget < tokens) {
+                        double requestWait = requestBudget < 1 ? (1 - requestBudget) / requestCapacity : 0;
+                        double tokenWait = tokenBudget < tokens ? (tokens - tokenBudget) / tokenCapacity : 0;
+                        waitNanos = (long) (Math.max(requestWait, tokenWait) * 60e9);
+                        break;
+                    }
+
+                    queue.pollFirst();
+                    queued--;
+                    requestBudget -= 1;
+                    tokenBudget -= tokens;
+                    inFlight++;
+                    admitted.add(Map.entry(head, new Permit(this, (int) tokens)));
+
+                    rotation.pollFirst();
+                    if (!queue.isEmpty()) rotation.addLast(caller);
+                    else queues.remove(caller);
+                }
+                if (waitNanos > 0) scheduleDrain(waitNanos);
+            }
+
+            for (Map.Entry<Waiter, Permit> entry : admitted) {
+                Waiter waiter = entry.getKey();
+                waitTimer.record(System.nanoTime() - waiter.enqueuedAt(), TimeUnit.NANOSECONDS);
+                if (!waiter.future().complete(entry.getValue())) {
+                    entry.getValue().release();
+                }
+            }
+        }
+
+        private void removeIfEmpty(Object caller, ArrayDeque<Waiter> queue) {
+            if (queue.isEmpty()) {
+                queues.remove(caller);
+                rotation.remove(caller);
+            }
+        }
+
+        private void scheduleDrain(long delayNanos) {
+            if (pendingDrain != null && !pendingDrain.isDone()
+                    && pendingDrain.getDelay(TimeUnit.NANOSECONDS) <= delayNanos) {
+                return;
+            }
+            if (pendingDrain != null) pendingDrain.cancel(false);
+            pendingDrain = scheduler.schedule(this::drain, Math.max(delayNanos, 1_000_000), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) return null;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses OpenAI reset durations such as "1s", "6m0s", "20ms" or "1h2m3.5s".
+     */
+    static Duration parseDuration(String value) {
+        if (value == null || value.isBlank()) return null;
+        Matcher m = DURATION_PART.matcher(value.trim());
+        double millis = 0;
+        boolean found = false;
+        while (m.find()) {
+            found = true;
+            double amount = Double.parseDouble(m.group(1));
+            millis += switch (m.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1_000;
+                default -> amount;
+            };
+        }
+        return found ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.earlywarning.common;
+
+import java.io.IOException;
+
+/**
+ * Response from the OpenAI API that arrived but could not be used: a malformed body, or a model answer
+ * without the expected fields or values. The upstream is healthy, so this neither counts towards the
+ * {@link OpenAiCircuitBreaker} nor is retried.
+ */
+public class OpenAiResponseException extends IOException {
+
+    public OpenAiResponseException(String message) {
+        super(message);
+    }
+
+    public OpenAiResponseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
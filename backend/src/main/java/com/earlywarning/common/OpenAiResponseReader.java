@@ -0,0 +1,171 @@
+package com.earlywarning.common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming readers for OpenAI response bodies.
+ * The body is consumed token by token straight from the HTTP stream: embedding values go directly into
+ * primitive float arrays, and no String copy of the body or JsonNode tree is built.
+ */
+public final class OpenAiResponseReader {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    // text-embedding-3-small; only the first row of a response may need to grow past it
+    private static final int DEFAULT_DIMENSION = 1536;
+
+    private OpenAiResponseReader() {
+    }
+
+    /**
+     * @param totalTokens usage.total_tokens, or -1 if the response has no usage
+     */
+    public record Embeddings(List<float[]> embeddings, int totalTokens) {}
+
+    /**
+     * @param content choices[0].message.content
+     */
+    public record ChatCompletion(String content, int totalTokens) {}
+
+    /**
+     * Reads a /v1/embeddings response, placing each embedding by its index.
+     *
+     * @param expected number of inputs in the request
+     */
+    public static Embeddings readEmbeddings(InputStream body, int expected) throws IOException {
+        float[][] embeddings = new float[expected][];
+        int totalTokens = -1;
+        try (JsonParser p = FACTORY.createParser(body)) {
+            expect(p, p.nextToken(), JsonToken.START_OBJECT);
+            int dimension = DEFAULT_DIMENSION;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        int index = -1;
+                        float[] embedding = null;
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String itemField = p.currentName();
+                            JsonToken itemValue = p.nextToken();
+                            if ("index".equals(itemField)) {
+                                index = p.getIntValue();
+                            } else if ("embedding".equals(itemField) && itemValue == JsonToken.START_ARRAY) {
+                                embedding = readFloats(p, dimension);
+                                dimension = embedding.length;
+                            } else {
+                                p.skipChildren();
+                            }
+                        }
+                        if (index < 0 || index >= expected || embedding == null) {
+                            throw new OpenAiResponseException("Malformed embedding item at index " + index);
+                        }
+                        embeddings[index] = embedding;
+                    }
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    totalTokens = readTotalTokens(p);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        for (int i = 0; i < expected; i++) {
+            if (embeddings[i] == null) throw new OpenAiResponseException("Missing embedding for input " + i);
+        }
+        return new Embeddings(Arrays.asList(embeddings), totalTokens);
+    }
+
+    /**
+     * Reads a /v1/chat/completions response, keeping only the first choice's message content.
+     */
+    public static ChatCompletion readChatCompletion(InputStream body) throws IOException {
+        String content = null;
+        int totalTokens = -1;
+        try (JsonParser p = FACTORY.createParser(body)) {
+            expect(p, p.nextToken(), JsonToken.START_OBJECT);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        String choiceContent = readChoiceContent(p);
+                        if (content == null) content = choiceContent;
+                    }
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    totalTokens = readTotalTokens(p);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        if (content == null) throw new OpenAiResponseException("Chat completion has no message content");
+        return new ChatCompletion(content, totalTokens);
+    }
+
+    private static String readChoiceContent(JsonParser p) throws IOException {
+        String content = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("message".equals(field) && value == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String messageField = p.currentName();
+                    JsonToken messageValue = p.nextToken();
+                    if ("content".equals(messageField) && messageValue == JsonToken.VALUE_STRING) {
+                        content = p.getText();
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return content;
+    }
+
+    private static int readTotalTokens(JsonParser p) throws IOException {
+        int total = -1;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if ("total_tokens".equals(field)) {
+                total = p.getIntValue();
+            } else {
+                p.skipChildren();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reads a number array into a float array sized by the expected dimension, growing only if it is longer.
+     */
+    private static float[] readFloats(JsonParser p, int expectedDimension) throws IOException {
+        float[] values = new float[expectedDimension];
+        int n = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (t != JsonToken.VALUE_NUMBER_FLOAT && t != JsonToken.VALUE_NUMBER_INT) {
+                throw new OpenAiResponseException("Unexpected " + t + " in embedding");
+            }
+            if (n == values.length) values = Arrays.copyOf(values, Math.max(16, n * 2));
+            // Parse from the parser's buffer; getFloatValue() would first copy every number into a String
+            values[n++] = NumberInput.parseFloat(p.getTextCharacters(), p.getTextOffset(), p.getTextLength(), true);
+        }
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+
+    private static void expect(JsonParser p, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new OpenAiResponseException("Expected " + expected + " but got " + actual + " at " + p.currentLocation());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.earlywarning.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.core.QueryExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Enables pgjdbc binary transfer for the pgvector type.
+ * The vector type OID is assigned when the extension is created, which can happen after the connection
+ * pool has started (schema.sql runs on its connections), so it is not configured on the data source.
+ * Instead {@link VectorType} passes the connection of every statement that binds or reads a vector, and
+ * binary transfer is turned on for that connection the first time; the driver caches the OID lookup per
+ * connection. A connection's first read may still arrive as text, which {@link PgVectorCodec} decodes too.
+ */
+@Slf4j
+@Component
+public class PgVectorBinaryTransferConfigurer {
+
+    private static volatile boolean enabled = true;
+
+    public PgVectorBinaryTransferConfigurer(@Value("${pgvector.binary-transfer:true}") boolean enabled) {
+        PgVectorBinaryTransferConfigurer.enabled = enabled;
+    }
+
+    static void enable(Connection connection) {
+        if (!enabled || connection == null) return;
+        try {
+            if (!connection.isWrapperFor(BaseConnection.class)) return;
+            BaseConnection pg = connection.unwrap(BaseConnection.class);
+            int oid = pg.getTypeInfo().getPGType("vector");
+            if (oid == Oid.UNSPECIFIED || pg.binaryTransferSend(oid)) return;
+
+            QueryExecutor executor = pg.getQueryExecutor();
+            executor.addBinarySendOid(oid);
+            executor.addBinaryReceiveOid(oid);
+            log.debug("Enabled binary transfer for pgvector (oid {})", oid);
+        } catch (SQLException e) {
+            enabled = false;
+            log.warn("Could not enable pgvector binary transfer, vectors will be transferred as text: {}",
+                    e.getMessage());
+        }
+    }
+}
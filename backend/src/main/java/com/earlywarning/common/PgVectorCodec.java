@@ -0,0 +1,87 @@
+package com.earlywarning.common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes and decodes pgvector values without going through String.split or intermediate arrays.
+ *
+ * Binary wire format (vector_send / vector_recv): int16 dimension, int16 unused,
+ * then dimension float4 values, all big-endian.
+ * Text format: "[0.1,0.2,0.3]".
+ */
+public final class PgVectorCodec {
+
+    private PgVectorCodec() {
+    }
+
+    public static int encodedLength(float[] vector) {
+        return 4 + 4 * vector.length;
+    }
+
+    public static byte[] encode(float[] vector) {
+        byte[] bytes = new byte[encodedLength(vector)];
+        encode(vector, bytes, 0);
+        return bytes;
+    }
+
+    public static void encode(float[] vector, byte[] dest, int offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(dest, offset, encodedLength(vector));
+        buffer.putShort((short) vector.length);
+        buffer.putShort((short) 0);
+        buffer.asFloatBuffer().put(vector);
+    }
+
+    /**
+     * Decodes either wire format. pgvector caps dimensions at 16000, so the high byte of a binary
+     * dimension header can never be '[' (0x5B) and the first byte tells the formats apart.
+     */
+    public static float[] decode(byte[] bytes) {
+        return decode(bytes, 0);
+    }
+
+    public static float[] decode(byte[] bytes, int offset) {
+        if (bytes.length > offset && bytes[offset] == '[') {
+            return parseText(bytes, offset);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, bytes.length - offset);
+        int dimension = buffer.getShort() & 0xFFFF;
+        buffer.getShort();
+        float[] vector = new float[dimension];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static float[] parseText(byte[] bytes, int offset) {
+        int end = bytes.length - 1;
+        while (end > offset && bytes[end] != ']') end--;
+        if (end <= offset + 1) return new float[0];
+
+        int dimension = 1;
+        for (int i = offset + 1; i < end; i++) {
+            if (bytes[i] == ',') dimension++;
+        }
+
+        float[] vector = new float[dimension];
+        int start = offset + 1;
+        int n = 0;
+        for (int i = start; i <= end; i++) {
+            if (i == end || bytes[i] == ',') {
+                vector[n++] = Float.parseFloat(new String(bytes, start, i - start, StandardCharsets.ISO_8859_1));
+                start = i + 1;
+            }
+        }
+        return vector;
+    }
+
+    public static String toText(float[] vector) {
+        // Typical embedding values such as "-0.012345678" fit in 12 chars plus the comma
+        StringBuilder sb = new StringBuilder(2 + vector.length * 13);
+        sb.append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
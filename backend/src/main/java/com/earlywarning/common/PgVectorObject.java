@@ -0,0 +1,55 @@
+package com.earlywarning.common;
+
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+/**
+ * JDBC parameter for a pgvector value.
+ * The driver sends it in binary form when binary transfer is enabled for the vector type
+ * (see {@link PgVectorBinaryTransferConfigurer}), otherwise as text.
+ */
+public class PgVectorObject extends PGobject implements PGBinaryObject {
+
+    private float[] vector;
+
+    public PgVectorObject() {
+        setType("vector");
+    }
+
+    public PgVectorObject(float[] vector) {
+        this();
+        this.vector = vector;
+    }
+
+    public float[] toArray() {
+        return vector;
+    }
+
+    @Override
+    public void setValue(String value) {
+        this.vector = value == null ? null : PgVectorCodec.decode(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public String getValue() {
+        return vector == null ? null : PgVectorCodec.toText(vector);
+    }
+
+    @Override
+    public void setByteValue(byte[] value, int offset) throws SQLException {
+        this.vector = PgVectorCodec.decode(value, offset);
+    }
+
+    @Override
+    public int lengthInBytes() {
+        return vector == null ? 0 : PgVectorCodec.encodedLength(vector);
+    }
+
+    @Override
+    public void toBytes(byte[] bytes, int offset) {
+        PgVectorCodec.encode(vector, bytes, offset);
+    }
+}
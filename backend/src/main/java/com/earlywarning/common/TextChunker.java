@@ -4,10 +4,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
 
+/**
+ * Splits a contract into chunks for analysis: by clause, long clauses by numbered sub-item (each prefixed
+ * with the clause heading) or by sentence, with short consecutive chunks merged up to chunkSize.
+ * Unstructured text is chunked by sentence.
+ *
+ * Clause headings, sub-items and sentence ends are found in a single scan of the text; chunks are
+ * {@link Chunk} views with offsets into it, so nothing is copied until a chunk's text is needed.
+ */
 @Component
 public class TextChunker {
 
@@ -15,136 +23,340 @@ public class TextChunker {
     private int chunkSize;
 
     // Korean: 제1조, 제2조 ... / English: Section 1, Article 1, ARTICLE I, 1. TITLE
-    private static final Pattern CLAUSE_PATTERN = Pattern.compile(
-            "(?m)^\\s*(?:제\\s*\\d+\\s*조|(?:Section|Article|SECTION|ARTICLE)\\s+[\\dIVXivx]+|\\d+\\.\\s+[A-Z\\uAC00-\\uD7A3])"
-    );
+    private static final String[] CLAUSE_KEYWORDS = {"Section", "Article", "SECTION", "ARTICLE"};
 
-    public List<String> chunk(String text) {
-        List<String> clauseChunks = splitByClauses(text);
-        if (clauseChunks.size() > 1) {
-            return refineClauses(clauseChunks);
+    public List<Chunk> chunk(CharSequence text) {
+        Scan scan = scan(text);
+        List<Chunk> clauses = splitByClauses(text, scan);
+        if (clauses.size() > 1) {
+            return merge(text, refineClauses(text, scan, clauses));
         }
         // Fallback: sentence-based chunking for unstructured text
-        return chunkBySentence(text);
+        List<Chunk> chunks = new ArrayList<>();
+        chunkBySentence(text, scan, 0, text.length(), chunks);
+        return chunks;
+    }
+
+    /**
+     * Line positions of clause headings and numbered sub-items, and the positions right after each
+     * sentence-ending punctuation mark followed by whitespace.
+     */
+    private static final class Scan {
+        final Positions headings = new Positions();
+        final Positions headingLineEnds = new Positions();
+        final Positions subItems = new Positions();
+        final Positions sentenceEnds = new Positions();
     }
 
-    private List<String> splitByClauses(String text) {
-        List<String> clauses = new ArrayList<>();
-        Matcher matcher = CLAUSE_PATTERN.matcher(text);
+    private static Scan scan(CharSequence text) {
+        Scan scan = new Scan();
+        int length = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int p = lineStart;
+            while (p < length && isBlank(text.charAt(p))) p++;
 
-        List<Integer> positions = new ArrayList<>();
-        while (matcher.find()) {
-            positions.add(matcher.start());
+            boolean heading = false;
+            int afterNumber = numberedItem(text, p);
+            if (afterNumber > 0) {
+                heading = isHeadingAfterNumber(text, afterNumber);
+                if (!heading) scan.subItems.add(p);
+            } else {
+                heading = isKoreanHeading(text, p) || isKeywordHeading(text, p);
+            }
+            if (heading) scan.headings.add(p);
+
+            int q = p;
+            while (q < length) {
+                char c = text.charAt(q);
+                if (c == '\n') break;
+                if ((c == '.' || c == '!' || c == '?' || c == '。')
+                        && q + 1 < length && Character.isWhitespace(text.charAt(q + 1))) {
+                    scan.sentenceEnds.add(q + 1);
+                }
+                q++;
+            }
+            if (heading) scan.headingLineEnds.add(q);
+            lineStart = q + 1;
         }
+        return scan;
+    }
 
-        if (positions.isEmpty()) {
+    private static List<Chunk> splitByClauses(CharSequence text, Scan scan) {
+        List<Chunk> clauses = new ArrayList<>();
+        if (scan.headings.size() == 0) {
             return clauses;
         }
 
         // Text before the first clause (title, preamble)
-        String preamble = text.substring(0, positions.get(0)).trim();
-        if (!preamble.isEmpty()) {
+        Chunk preamble = trimmed(text, 0, scan.headings.get(0), -1, -1);
+        if (preamble != null) {
             clauses.add(preamble);
         }
 
-        for (int i = 0; i < positions.size(); i++) {
-            int start = positions.get(i);
-            int end = (i + 1 < positions.size()) ? positions.get(i + 1) : text.length();
-            String clause = text.substring(start, end).trim();
-            if (!clause.isEmpty()) {
+        for (int i = 0; i < scan.headings.size(); i++) {
+            int start = scan.headings.get(i);
+            int end = (i + 1 < scan.headings.size()) ? scan.headings.get(i + 1) : text.length();
+            // The heading line is kept as the heading of the clause's sub-items, if it gets split
+            Chunk clause = trimmed(text, start, end, start, Math.min(scan.headingLineEnds.get(i), end));
+            if (clause != null) {
                 clauses.add(clause);
             }
         }
-
         return clauses;
     }
 
     /**
-     * If a clause exceeds chunkSize, split it further by sub-items (1. 2. 3.)
-     * If a clause is very short, merge it with the next one.
+     * If a clause exceeds chunkSize, split it further by sub-items (1. 2. 3.), else by sentence.
      */
-    private List<String> refineClauses(List<String> clauses) {
-        List<String> result = new ArrayList<>();
-
-        for (String clause : clauses) {
-            if (clause.length() <= chunkSize) {
-                result.add(clause);
+    private List<Chunk> refineClauses(CharSequence text, Scan scan, List<Chunk> clauses) {
+        List<Chunk> result = new ArrayList<>();
+        for (Chunk clause : clauses) {
+            if (clause.end() - clause.start() <= chunkSize) {
+                result.add(new Chunk(text, clause.start(), clause.end(), -1, -1));
             } else {
-                // Split long clauses by numbered sub-items
-                result.addAll(splitLongClause(clause));
+                splitLongClause(text, scan, clause, result);
             }
         }
+        return result;
+    }
+
+    private void splitLongClause(CharSequence text, Scan scan, Chunk clause, List<Chunk> parts) {
+        int start = clause.start();
+        int end = clause.end();
+        int headingEnd = clause.hasHeading() ? clause.headingEnd() : indexOf(text, '\n', start, end);
+        int bodyStart = headingEnd < 0 ? start : skipWhitespace(text, headingEnd, end);
 
-        // Merge very short consecutive chunks (< 100 chars)
-        List<String> merged = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        for (String chunk : result) {
-            if (current.length() > 0 && current.length() + chunk.length() > chunkSize) {
-                merged.add(current.toString().trim());
-                current = new StringBuilder();
+        // Heading line (제N조 ... or Section N ...), trimmed; absent when the clause is a single line
+        int headingStart = -1;
+        if (headingEnd > start) {
+            int trimmedEnd = headingEnd;
+            while (trimmedEnd > start && Character.isWhitespace(text.charAt(trimmedEnd - 1))) trimmedEnd--;
+            headingStart = start;
+            headingEnd = trimmedEnd;
+        } else {
+            headingEnd = -1;
+        }
+
+        int first = scan.subItems.firstAtOrAfter(bodyStart);
+        int last = scan.subItems.firstAtOrAfter(end);
+        if (last - first <= 1) {
+            // Can't split further, use sentence-based fallback
+            chunkBySentence(text, scan, start, end, parts);
+            return;
+        }
+
+        // Prefix the heading so GPT knows the context
+        Chunk intro = trimmed(text, bodyStart, scan.subItems.get(first), headingStart, headingEnd);
+        if (intro != null) {
+            parts.add(intro);
+        }
+        for (int i = first; i < last; i++) {
+            int itemEnd = (i + 1 < last) ? scan.subItems.get(i + 1) : end;
+            Chunk item = trimmed(text, scan.subItems.get(i), itemEnd, headingStart, headingEnd);
+            if (item != null) {
+                parts.add(item);
             }
-            if (current.length() > 0) {
-                current.append("\n");
+        }
+    }
+
+    private void chunkBySentence(CharSequence text, Scan scan, int start, int end, List<Chunk> chunks) {
+        int chunkStart = -1;
+        int chunkEnd = -1;
+        int sentenceStart = skipWhitespace(text, start, end);
+        for (int i = scan.sentenceEnds.firstAtOrAfter(start + 1); sentenceStart < end; i++) {
+            int sentenceEnd = i < scan.sentenceEnds.size() ? Math.min(scan.sentenceEnds.get(i), end) : end;
+            if (sentenceEnd <= sentenceStart) continue;
+            if (chunkStart >= 0 && sentenceEnd - chunkStart > chunkSize) {
+                chunks.add(trimmed(text, chunkStart, chunkEnd, -1, -1));
+                chunkStart = -1;
             }
-            current.append(chunk);
+            if (chunkStart < 0) chunkStart = sentenceStart;
+            chunkEnd = sentenceEnd;
+            sentenceStart = skipWhitespace(text, sentenceEnd, end);
         }
-        if (current.length() > 0) {
-            merged.add(current.toString().trim());
+        if (chunkStart >= 0) {
+            Chunk last = trimmed(text, chunkStart, chunkEnd, -1, -1);
+            if (last != null) chunks.add(last);
         }
+    }
 
+    /**
+     * Merges short consecutive chunks up to chunkSize. Chunks are consecutive spans of the text, so a
+     * merged chunk is the span from the first to the last, with the heading of the first.
+     */
+    private List<Chunk> merge(CharSequence text, List<Chunk> chunks) {
+        List<Chunk> merged = new ArrayList<>();
+        Chunk current = null;
+        for (Chunk chunk : chunks) {
+            if (current != null && current.headingLength() + chunk.end() - current.start() > chunkSize) {
+                merged.add(current);
+                current = null;
+            }
+            current = current == null ? chunk
+                    : new Chunk(text, current.start(), chunk.end(), current.headingStart(), current.headingEnd());
+        }
+        if (current != null) {
+            merged.add(current);
+        }
         return merged;
     }
 
-    private List<String> splitLongClause(String clause) {
-        List<String> parts = new ArrayList<>();
+    /**
+     * @return the span without surrounding whitespace, or null if it is blank
+     */
+    private static Chunk trimmed(CharSequence text, int start, int end, int headingStart, int headingEnd) {
+        start = skipWhitespace(text, start, end);
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        return start < end ? new Chunk(text, start, end, headingStart, headingEnd) : null;
+    }
+
+    private static int skipWhitespace(CharSequence text, int from, int end) {
+        while (from < end && Character.isWhitespace(text.charAt(from))) from++;
+        return from;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (text.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(char c) {
+        return c != '\n' && Character.isWhitespace(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return the position after "N." at p, or -1
+     */
+    private static int numberedItem(CharSequence text, int p) {
+        int i = p;
+        while (i < text.length() && isDigit(text.charAt(i))) i++;
+        return i > p && i < text.length() && text.charAt(i) == '.' ? i + 1 : -1;
+    }
 
-        // Extract the heading line (제N조 ... or Section N ...)
-        int firstNewline = clause.indexOf('\n');
-        String heading = (firstNewline > 0) ? clause.substring(0, firstNewline).trim() : "";
-        String body = (firstNewline > 0) ? clause.substring(firstNewline).trim() : clause;
+    // "1. TITLE" / "1. 목적": the number is followed by whitespace and an upper-case or Hangul letter
+    private static boolean isHeadingAfterNumber(CharSequence text, int p) {
+        int i = p;
+        while (i < text.length() && isBlank(text.charAt(i))) i++;
+        if (i == p || i >= text.length()) return false;
+        char c = text.charAt(i);
+        return (c >= 'A' && c <= 'Z') || (c >= '가' && c <= '힣');
+    }
 
-        // Split body by numbered items: "1." "2." etc at line start
-        Pattern subItemPattern = Pattern.compile("(?m)^\\s*\\d+\\.");
-        Matcher m = subItemPattern.matcher(body);
+    // 제1조, 제 2 조
+    private static boolean isKoreanHeading(CharSequence text, int p) {
+        int length = text.length();
+        if (p >= length || text.charAt(p) != '제') return false;
+        int i = p + 1;
+        while (i < length && isBlank(text.charAt(i))) i++;
+        int digits = i;
+        while (i < length && isDigit(text.charAt(i))) i++;
+        if (i == digits) return false;
+        while (i < length && isBlank(text.charAt(i))) i++;
+        return i < length && text.charAt(i) == '조';
+    }
 
-        List<Integer> subPositions = new ArrayList<>();
-        while (m.find()) {
-            subPositions.add(m.start());
+    // Section 1, Article IV, ARTICLE 2
+    private static boolean isKeywordHeading(CharSequence text, int p) {
+        int length = text.length();
+        for (String keyword : CLAUSE_KEYWORDS) {
+            int k = keyword.length();
+            if (p + k >= length || !regionMatches(text, p, keyword)) continue;
+            int i = p + k;
+            while (i < length && isBlank(text.charAt(i))) i++;
+            if (i == p + k || i >= length) continue;
+            char c = text.charAt(i);
+            if (isDigit(c) || "IVXivx".indexOf(c) >= 0) return true;
         }
+        return false;
+    }
 
-        if (subPositions.size() <= 1) {
-            // Can't split further, use sentence-based fallback
-            return chunkBySentence(clause);
+    private static boolean regionMatches(CharSequence text, int p, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (text.charAt(p + i) != s.charAt(i)) return false;
         }
+        return true;
+    }
+
+    /**
+     * A chunk of the text: the span [start, end), preceded by the heading span [headingStart, headingEnd)
+     * and a newline when the chunk is a sub-item of a longer clause (headingStart is -1 otherwise).
+     * Offsets are char indexes into the text the chunker was given.
+     */
+    public record Chunk(CharSequence text, int start, int end, int headingStart, int headingEnd)
+            implements CharSequence {
 
-        for (int i = 0; i < subPositions.size(); i++) {
-            int start = subPositions.get(i);
-            int end = (i + 1 < subPositions.size()) ? subPositions.get(i + 1) : body.length();
-            String subItem = body.substring(start, end).trim();
-            // Prepend heading so GPT knows the context
-            parts.add(heading + "\n" + subItem);
+        public boolean hasHeading() {
+            return headingStart >= 0;
         }
 
-        return parts;
-    }
+        private int headingLength() {
+            return hasHeading() ? headingEnd - headingStart + 1 : 0;
+        }
 
-    private List<String> chunkBySentence(String text) {
-        List<String> chunks = new ArrayList<>();
-        String[] sentences = text.split("(?<=[.!?。])\\s+");
+        @Override
+        public int length() {
+            return headingLength() + end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            Objects.checkIndex(index, length());
+            int heading = headingLength();
+            if (index >= heading) return text.charAt(start + index - heading);
+            return index == heading - 1 ? '\n' : text.charAt(headingStart + index);
+        }
 
-        StringBuilder current = new StringBuilder();
-        for (String sentence : sentences) {
-            if (current.length() + sentence.length() > chunkSize && !current.isEmpty()) {
-                chunks.add(current.toString().trim());
-                current = new StringBuilder();
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            if (!hasHeading()) {
+                return text.subSequence(start, end).toString();
             }
-            current.append(sentence).append(" ");
+            return new StringBuilder(length())
+                    .append(text, headingStart, headingEnd)
+                    .append('\n')
+                    .append(text, start, end)
+                    .toString();
         }
+    }
 
-        if (!current.isEmpty()) {
-            chunks.add(current.toString().trim());
+    /**
+     * Growable sorted list of positions.
+     */
+    private static final class Positions {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
         }
 
-        return chunks;
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the index of the first position >= value, or size() if there is none
+         */
+        int firstAtOrAfter(int value) {
+            int i = Arrays.binarySearch(values, 0, size, value);
+            return i >= 0 ? i : -i - 1;
+        }
     }
 }
@@ -7,6 +7,7 @@ import java.io.Serializable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.Arrays;
 
@@ -35,18 +36,13 @@ public class VectorType implements UserType<float[]> {
     @Override
     public float[] nullSafeGet(ResultSet rs, int position, SharedSessionContractImplementor session, Object owner)
             throws SQLException {
-        String value = rs.getString(position);
-        if (value == null) {
-            return null;
-        }
-        // "[0.1,0.2,0.3]" -> float[]
-        value = value.substring(1, value.length() - 1);
-        String[] parts = value.split(",");
-        float[] result = new float[parts.length];
-        for (int i = 0; i < parts.length; i++) {
-            result[i] = Float.parseFloat(parts[i].trim());
+        // Raw column bytes: the binary wire format when binary transfer is enabled, otherwise "[0.1,0.2,0.3]"
+        byte[] value = rs.getBytes(position);
+        Statement statement = rs.getStatement();
+        if (statement != null) {
+            PgVectorBinaryTransferConfigurer.enable(statement.getConnection());
         }
-        return result;
+        return value == null ? null : PgVectorCodec.decode(value);
     }
 
     @Override
@@ -55,14 +51,8 @@ public class VectorType implements UserType<float[]> {
         if (value == null) {
             st.setNull(index, Types.OTHER);
         } else {
-            // float[] -> "[0.1,0.2,0.3]"
-            StringBuilder sb = new StringBuilder("[");
-            for (int i = 0; i < value.length; i++) {
-                if (i > 0) sb.append(",");
-                sb.append(value[i]);
-            }
-            sb.append("]");
-            st.setObject(index, sb.toString(), Types.OTHER);
+            PgVectorBinaryTransferConfigurer.enable(st.getConnection());
+            st.setObject(index, new PgVectorObject(value));
         }
     }
 
@@ -0,0 +1,66 @@
+package com.earlywarning.contract;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persistent unit of analysis work. Workers claim jobs with SELECT ... FOR UPDATE SKIP LOCKED and hold a
+ * lease while running; a job whose lease expires (e.g. the node crashed) becomes claimable again while it has
+ * attempts left, and is failed otherwise. A contract has at most one queued or running job.
+ */
+@Entity
+@Table(name = "analysis_job", indexes = {
+        @Index(name = "analysis_job_claim_idx", columnList = "status, priority, available_at"),
+        @Index(name = "analysis_job_contract_idx", columnList = "contract_id")
+})
+@Getter @Setter
+@NoArgsConstructor
+public class AnalysisJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "contract_id", nullable = false)
+    private Long contractId;
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.QUEUED;
+
+    // Higher runs first
+    private int priority;
+
+    private int attempts;
+
+    @Column(name = "max_attempts")
+    private int maxAttempts;
+
+    @Column(name = "available_at")
+    private LocalDateTime availableAt = LocalDateTime.now();
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+}
@@ -0,0 +1,149 @@
+package com.earlywarning.contract;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable analysis job queue backed by the analysis_job table.
+ * Enqueueing joins the caller's transaction, so a contract and its job are committed together.
+ */
+@Slf4j
+@Component
+public class AnalysisJobQueue {
+
+    public static final int PRIORITY_UPLOAD = 10;
+    public static final int PRIORITY_REANALYSIS = 5;
+    public static final int PRIORITY_RECOVERY = 0;
+
+    private final AnalysisJobRepository jobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong queuedDepth = new AtomicLong();
+    private final AtomicLong runningCount = new AtomicLong();
+    private final Timer waitTimer;
+    private final Timer processingTimer;
+
+    @Value("${analysis.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    public AnalysisJobQueue(AnalysisJobRepository jobRepository, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jobRepository = jobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("analysis.jobs.depth", queuedDepth, AtomicLong::get)
+                .tag("status", "queued").register(meterRegistry);
+        Gauge.builder("analysis.jobs.depth", runningCount, AtomicLong::get)
+                .tag("status", "running").register(meterRegistry);
+        this.waitTimer = Timer.builder("analysis.jobs.wait").register(meterRegistry);
+        this.processingTimer = Timer.builder("analysis.jobs.processing").register(meterRegistry);
+    }
+
+    /**
+     * At most one queued or running job per contract, enforced by a partial unique index that JPA cannot
+     * declare. Jobs duplicated before the index existed are failed first, keeping the oldest.
+     */
+    @PostConstruct
+    void createPendingIndex() {
+        try {
+            int duplicates = jdbcTemplate.update("""
+                    UPDATE analysis_job j SET status = 'FAILED', finished_at = LOCALTIMESTAMP, lease_owner = NULL,
+                        last_error = 'Duplicate pending job'
+                    WHERE j.status IN ('QUEUED', 'RUNNING')
+                      AND EXISTS (SELECT 1 FROM analysis_job o
+                                  WHERE o.contract_id = j.contract_id AND o.status IN ('QUEUED', 'RUNNING')
+                                    AND o.id < j.id)
+                    """);
+            if (duplicates > 0) {
+                log.info("Failed {} duplicate pending analysis jobs", duplicates);
+            }
+            jdbcTemplate.execute("""
+                    CREATE UNIQUE INDEX IF NOT EXISTS analysis_job_pending_contract_uk
+                    ON analysis_job (contract_id) WHERE status IN ('QUEUED', 'RUNNING')
+                    """);
+        } catch (Exception e) {
+            log.warn("Could not create analysis_job_pending_contract_uk: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queues an analysis for the contract unless one is already queued or running.
+     */
+    public void enqueue(Long contractId, int priority) {
+        if (jobRepository.insertIfNotPending(contractId, priority, maxAttempts) == 0) {
+            log.debug("Analysis already pending for contract {}", contractId);
+            return;
+        }
+        queuedDepth.incrementAndGet();
+    }
+
+    Optional<AnalysisJob> claim(String owner, Duration lease) {
+        Optional<AnalysisJob> job = jobRepository.claimNext(owner, lease.toSeconds());
+        job.ifPresent(j -> {
+            LocalDateTime queuedSince = j.getAvailableAt() != null ? j.getAvailableAt() : j.getCreatedAt();
+            waitTimer.record(Duration.between(queuedSince, LocalDateTime.now()).abs());
+        });
+        return job;
+    }
+
+    boolean renewLease(AnalysisJob job, String owner, Duration lease) {
+        return jobRepository.renewLease(job.getId(), owner, lease.toSeconds()) > 0;
+    }
+
+    void succeeded(AnalysisJob job, String owner, Duration processing) {
+        processingTimer.record(processing);
+        jobRepository.markSucceeded(job.getId(), owner);
+    }
+
+    /**
+     * @return true if the job will be retried, false if it has exhausted its attempts
+     */
+    boolean failed(AnalysisJob job, String owner, Duration processing, Exception error, Duration retryBackoff) {
+        processingTimer.record(processing);
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (job.getAttempts() < job.getMaxAttempts()) {
+            // Exponential backoff: backoff, 2 * backoff, 4 * backoff, ...
+            long delay = retryBackoff.toSeconds() << Math.min(job.getAttempts() - 1, 10);
+            jobRepository.requeue(job.getId(), owner, message, delay);
+            return true;
+        }
+        jobRepository.markFailed(job.getId(), owner, message);
+        return false;
+    }
+
+    /**
+     * Requeues a job that could not run through no fault of its own, without counting the attempt.
+     */
+    void deferred(AnalysisJob job, String owner, Exception reason, Duration delay) {
+        jobRepository.defer(job.getId(), owner, reason.getClass().getSimpleName() + ": " + reason.getMessage(),
+                Math.max(1, delay.toSeconds()));
+    }
+
+    /**
+     * @return contracts whose job was failed because its lease expired on the last attempt
+     */
+    List<Long> failExhaustedExpired() {
+        return jobRepository.failExhaustedExpired();
+    }
+
+    void refreshMetrics() {
+        queuedDepth.set(jobRepository.countByStatus(AnalysisJob.Status.QUEUED));
+        runningCount.set(jobRepository.countByStatus(AnalysisJob.Status.RUNNING));
+    }
+
+    void recoverOrphanedContracts() {
+        for (Long contractId : jobRepository.findOrphanedContractIds()) {
+            log.info("Re-queueing analysis for contract {} left in ANALYZING", contractId);
+            enqueue(contractId, PRIORITY_RECOVERY);
+        }
+    }
+}
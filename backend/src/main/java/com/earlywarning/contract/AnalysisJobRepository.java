@@ -0,0 +1,132 @@
+package com.earlywarning.contract;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, Long> {
+
+    /**
+     * Atomically claims the next runnable job: a queued job that is due, or a running job whose
+     * lease has expired and that has attempts left. SKIP LOCKED lets several workers and backend
+     * instances claim concurrently.
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE analysis_job
+        SET status = 'RUNNING',
+            lease_owner = :owner,
+            lease_expires_at = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds),
+            attempts = attempts + 1,
+            started_at = LOCALTIMESTAMP
+        WHERE id = (
+            SELECT id FROM analysis_job
+            WHERE (status = 'QUEUED' AND available_at <= LOCALTIMESTAMP)
+               OR (status = 'RUNNING' AND lease_expires_at < LOCALTIMESTAMP AND attempts < max_attempts)
+            ORDER BY priority DESC, available_at, id
+            FOR UPDATE SKIP LOCKED
+            LIMIT 1
+        )
+        RETURNING *
+        """, nativeQuery = true)
+    Optional<AnalysisJob> claimNext(@Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Fails running jobs whose lease expired on their last attempt, e.g. because the job kept
+     * killing its worker, instead of running them again.
+     *
+     * @return the contracts of the failed jobs
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE analysis_job SET status = 'FAILED', finished_at = LOCALTIMESTAMP, lease_owner = NULL,
+            last_error = 'Lease expired on the last attempt'
+        WHERE status = 'RUNNING' AND lease_expires_at < LOCALTIMESTAMP AND attempts >= max_attempts
+        RETURNING contract_id
+        """, nativeQuery = true)
+    List<Long> failExhaustedExpired();
+
+    /**
+     * Inserts a queued job unless the contract already has a queued or running one; relies on the
+     * analysis_job_pending_contract_uk partial index, so concurrent enqueues cannot both insert.
+     *
+     * @return 1 if the job was inserted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO analysis_job (contract_id, status, priority, attempts, max_attempts, available_at, created_at)
+        VALUES (:contractId, 'QUEUED', :priority, 0, :maxAttempts, LOCALTIMESTAMP, LOCALTIMESTAMP)
+        ON CONFLICT (contract_id) WHERE status IN ('QUEUED', 'RUNNING') DO NOTHING
+        """, nativeQuery = true)
+    int insertIfNotPending(@Param("contractId") Long contractId, @Param("priority") int priority,
+                           @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE analysis_job SET lease_expires_at = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds)
+        WHERE id = :id AND lease_owner = :owner AND status = 'RUNNING'
+        """, nativeQuery = true)
+    int renewLease(@Param("id") Long id, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE analysis_job SET status = 'SUCCEEDED', finished_at = LOCALTIMESTAMP, lease_owner = NULL
+        WHERE id = :id AND lease_owner = :owner
+        """, nativeQuery = true)
+    int markSucceeded(@Param("id") Long id, @Param("owner") String owner);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE analysis_job SET status = 'QUEUED', lease_owner = NULL, last_error = :error,
+            available_at = LOCALTIMESTAMP + make_interval(secs => :delaySeconds)
+        WHERE id = :id AND lease_owner = :owner
+        """, nativeQuery = true)
+    int requeue(@Param("id") Long id, @Param("owner") String owner,
+                @Param("error") String error, @Param("delaySeconds") long delaySeconds);
+
+    /**
+     * Puts the job back without using up the attempt it was claimed with.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE analysis_job SET status = 'QUEUED', lease_owner = NULL, last_error = :error,
+            attempts = GREATEST(attempts - 1, 0),
+            available_at = LOCALTIMESTAMP + make_interval(secs => :delaySeconds)
+        WHERE id = :id AND lease_owner = :owner
+        """, nativeQuery = true)
+    int defer(@Param("id") Long id, @Param("owner") String owner,
+              @Param("error") String error, @Param("delaySeconds") long delaySeconds);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE analysis_job SET status = 'FAILED', finished_at = LOCALTIMESTAMP, lease_owner = NULL, last_error = :error
+        WHERE id = :id AND lease_owner = :owner
+        """, nativeQuery = true)
+    int markFailed(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error);
+
+    long countByStatus(AnalysisJob.Status status);
+
+    void deleteByContractId(Long contractId);
+
+    /**
+     * Contracts left in ANALYZING without a pending job, e.g. started before the queue existed.
+     */
+    @Query(value = """
+        SELECT c.id FROM contract c
+        WHERE c.status = 'ANALYZING'
+          AND NOT EXISTS (SELECT 1 FROM analysis_job j
+                          WHERE j.contract_id = c.id AND j.status IN ('QUEUED', 'RUNNING'))
+        """, nativeQuery = true)
+    List<Long> findOrphanedContractIds();
+}
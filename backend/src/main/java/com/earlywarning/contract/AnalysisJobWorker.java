@@ -0,0 +1,171 @@
+package com.earlywarning.contract;
+
+import com.earlywarning.common.OpenAiCircuitBreaker;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the {@link AnalysisJobQueue} with a fixed number of workers per backend instance.
+ * Running jobs keep their lease alive with a heartbeat; failed jobs are retried with backoff
+ * until max attempts, after which the contract is marked FAILED.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AnalysisJobWorker {
+
+    private final AnalysisJobQueue jobQueue;
+    private final ContractService contractService;
+    private final OpenAiCircuitBreaker circuitBreaker;
+
+    @Value("${analysis.jobs.workers:4}")
+    private int workers;
+
+    @Value("${analysis.jobs.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${analysis.jobs.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${analysis.jobs.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds;
+
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    private ExecutorService workerPool;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "analysis-job-scheduler"));
+        scheduler.scheduleWithFixedDelay(this::housekeeping, 0, 10, TimeUnit.SECONDS);
+
+        try {
+            jobQueue.recoverOrphanedContracts();
+        } catch (Exception e) {
+            log.warn("Could not recover contracts left in ANALYZING: {}", e.getMessage());
+        }
+
+        workerPool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("analysis-worker-", 1).factory());
+        for (int i = 0; i < workers; i++) {
+            String owner = instanceId + "-" + i;
+            workerPool.submit(() -> pollLoop(owner));
+        }
+        log.info("Started {} analysis workers ({})", workers, instanceId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (workerPool != null) workerPool.shutdownNow();
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void pollLoop(String owner) {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                // Leave jobs queued while OpenAI is unavailable instead of burning their attempts
+                if (!circuitBreaker.allowsNewWork()) {
+                    Thread.sleep(pollIntervalMs);
+                    continue;
+                }
+                Optional<AnalysisJob> job = jobQueue.claim(owner, Duration.ofSeconds(leaseSeconds));
+                if (job.isPresent()) {
+                    process(job.get(), owner);
+                } else {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Analysis worker {} poll failed: {}", owner, e.getMessage());
+                sleepQuietly(pollIntervalMs);
+            }
+        }
+    }
+
+    private void process(AnalysisJob job, String owner) {
+        Duration lease = Duration.ofSeconds(leaseSeconds);
+        long heartbeat = Math.max(1, leaseSeconds / 3);
+        ScheduledFuture<?> renewal = scheduler.scheduleAtFixedRate(() -> {
+            try {
+                if (!jobQueue.renewLease(job, owner, lease)) {
+                    log.warn("Lost lease on analysis job {}", job.getId());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to renew lease on analysis job {}: {}", job.getId(), e.getMessage());
+            }
+        }, heartbeat, heartbeat, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        try {
+            log.info("Analysis job {} for contract {} started (attempt {}/{})",
+                    job.getId(), job.getContractId(), job.getAttempts(), job.getMaxAttempts());
+            contractService.analyze(job.getContractId());
+            renewal.cancel(false);
+            jobQueue.succeeded(job, owner, Duration.ofNanos(System.nanoTime() - start));
+        } catch (Exception e) {
+            renewal.cancel(false);
+            OpenAiCircuitBreaker.CircuitOpenException circuitOpen = circuitOpenCause(e);
+            if (circuitOpen != null) {
+                // OpenAI was unavailable; the job itself did not fail, so it keeps its attempts
+                log.info("Analysis job {} for contract {} deferred: {}", job.getId(), job.getContractId(),
+                        circuitOpen.getMessage());
+                jobQueue.deferred(job, owner, circuitOpen,
+                        circuitOpen.getRetryIn().plusMillis(pollIntervalMs));
+                contractService.handleAnalysisFailure(job.getContractId(), circuitOpen, true);
+                return;
+            }
+            log.error("Analysis job {} for contract {} failed", job.getId(), job.getContractId(), e);
+            boolean retrying = jobQueue.failed(job, owner, Duration.ofNanos(System.nanoTime() - start), e,
+                    Duration.ofSeconds(retryBackoffSeconds));
+            contractService.handleAnalysisFailure(job.getContractId(), e, retrying);
+        }
+    }
+
+    private static OpenAiCircuitBreaker.CircuitOpenException circuitOpenCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OpenAiCircuitBreaker.CircuitOpenException open) return open;
+        }
+        return null;
+    }
+
+    private void housekeeping() {
+        try {
+            for (Long contractId : jobQueue.failExhaustedExpired()) {
+                log.warn("Analysis job for contract {} lost its lease on the last attempt, giving up", contractId);
+                contractService.handleAnalysisFailure(contractId,
+                        new IllegalStateException("Analysis did not finish within its attempts"), false);
+            }
+            jobQueue.refreshMetrics();
+        } catch (Exception e) {
+            log.debug("Analysis job housekeeping failed: {}", e.getMessage());
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,58 +1,177 @@
 package com.earlywarning.contract;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.sql.DataSource;
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Relays analysis progress to the SSE streams of the contract.
+ * The job may run on another backend instance than the one holding the stream, so progress is published
+ * with Postgres NOTIFY and every instance LISTENs on a dedicated connection and forwards the events of its
+ * own streams. COMPLETED and FAILED end the stream. Events sent while this instance is not listening are
+ * delivered locally only.
+ */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class AnalysisProgressEmitter {
 
+    static final String CHANNEL = "analysis_progress";
+    // NOTIFY payloads are limited to 8000 bytes
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
     private final ConcurrentHashMap<Long, SseEmitter> emitters = new ConcurrentHashMap<>();
 
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listener;
+
+    record Progress(Long contractId, String step, String message, int current, int total) {
+
+        boolean isFinal() {
+            return "COMPLETED".equals(step) || "FAILED".equals(step);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listener = Thread.ofPlatform().name("analysis-progress-listener").daemon().start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
     public SseEmitter create(Long contractId) {
         SseEmitter emitter = new SseEmitter(300_000L); // 5 min timeout
         emitters.put(contractId, emitter);
 
-        emitter.onCompletion(() -> emitters.remove(contractId));
-        emitter.onTimeout(() -> emitters.remove(contractId));
-        emitter.onError(e -> emitters.remove(contractId));
+        emitter.onCompletion(() -> emitters.remove(contractId, emitter));
+        emitter.onTimeout(() -> emitters.remove(contractId, emitter));
+        emitter.onError(e -> emitters.remove(contractId, emitter));
 
         return emitter;
     }
 
+    /**
+     * Sends a progress event to the streams of the contract on every instance.
+     * COMPLETED and FAILED complete the streams after the event.
+     */
     public void send(Long contractId, String step, String message, int current, int total) {
-        SseEmitter emitter = emitters.get(contractId);
-        if (emitter != null) {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("progress")
-                        .data(Map.of(
-                                "step", step,
-                                "message", message,
-                                "current", current,
-                                "total", total
-                        )));
-            } catch (IOException e) {
-                log.warn("Failed to send SSE for contract {}: {}", contractId, e.getMessage());
-                emitters.remove(contractId);
+        if (message != null && message.length() > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_MESSAGE_LENGTH);
+        }
+        Progress progress = new Progress(contractId, step, message, current, total);
+        if (!publish(progress) || !listening) {
+            deliver(progress);
+        }
+    }
+
+    private boolean publish(Progress progress) {
+        try {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, objectMapper.writeValueAsString(progress));
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to publish progress for contract {}: {}", progress.contractId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                listening = true;
+                log.info("Listening for analysis progress on channel {}", CHANNEL);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Analysis progress listener failed, reconnecting: {}", e.getMessage());
+                }
+            } finally {
+                listening = false;
             }
+            if (running) sleepQuietly(RECONNECT_DELAY_MS);
         }
     }
 
-    public void complete(Long contractId) {
+    private void receive(String payload) {
+        try {
+            Progress progress = objectMapper.readValue(payload, Progress.class);
+            if (emitters.containsKey(progress.contractId())) deliver(progress);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed progress notification: {}", e.getMessage());
+        }
+    }
+
+    private void deliver(Progress progress) {
+        Long contractId = progress.contractId();
         SseEmitter emitter = emitters.get(contractId);
-        if (emitter != null) {
+        if (emitter == null) return;
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("progress")
+                    .data(Map.of(
+                            "step", progress.step(),
+                            "message", progress.message() != null ? progress.message() : "",
+                            "current", progress.current(),
+                            "total", progress.total()
+                    )));
+        } catch (IOException e) {
+            log.warn("Failed to send SSE for contract {}: {}", contractId, e.getMessage());
+            emitters.remove(contractId, emitter);
+            return;
+        }
+        if (progress.isFinal()) {
             try {
                 emitter.complete();
             } catch (Exception e) {
                 log.warn("Failed to complete SSE for contract {}: {}", contractId, e.getMessage());
             }
-            emitters.remove(contractId);
+            emitters.remove(contractId, emitter);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
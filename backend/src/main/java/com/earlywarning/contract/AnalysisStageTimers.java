@@ -0,0 +1,39 @@
+package com.earlywarning.contract;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency of each stage of the analysis pipeline, published as analysis.stage{stage=...}.
+ * Percentiles and histogram buckets are configured with management.metrics.distribution.*.
+ */
+@Component
+public class AnalysisStageTimers {
+
+    public enum Stage {
+        EXTRACT, CHUNK, EMBED, SEARCH, EVALUATE, PERSIST;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    public AnalysisStageTimers(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("analysis.stage")
+                    .tag("stage", stage.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    public Timer get(Stage stage) {
+        return timers.get(stage);
+    }
+}
@@ -0,0 +1,245 @@
+package com.earlywarning.contract;
+
+import com.earlywarning.common.OpenAiClient;
+import com.earlywarning.common.OpenAiRateGovernor;
+import com.earlywarning.embedding.EmbeddingProvider;
+import com.earlywarning.regulation.Regulation;
+import com.earlywarning.regulation.RegulationMatcher;
+import com.earlywarning.risk.RiskVerdictCache;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embeds all chunks of a contract in batched requests and matches them against regulations
+ * in one pass, then fans risk evaluation out over virtual threads, several chunks per chat request.
+ * Concurrency is bounded per contract and globally (across all contracts being analyzed),
+ * so the number of in-flight OpenAI calls never exceeds the configured limits.
+ * Results are always returned in chunk order.
+ */
+@Slf4j
+@Component
+public class ChunkAnalysisEngine {
+
+    private final OpenAiClient openAiClient;
+    private final EmbeddingProvider embeddingProvider;
+    private final RegulationMatcher regulationMatcher;
+    private final RiskVerdictCache verdictCache;
+    private final AnalysisStageTimers stageTimers;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore globalPermits;
+    private final int perContractConcurrency;
+    private final int batchMaxClauses;
+    private final int batchMaxTokens;
+
+    public ChunkAnalysisEngine(OpenAiClient openAiClient,
+                               EmbeddingProvider embeddingProvider,
+                               RegulationMatcher regulationMatcher,
+                               RiskVerdictCache verdictCache,
+                               AnalysisStageTimers stageTimers,
+                               @Value("${risk.analysis.max-concurrency:16}") int maxConcurrency,
+                               @Value("${risk.analysis.per-contract-concurrency:4}") int perContractConcurrency,
+                               @Value("${risk.analysis.batch.max-clauses:8}") int batchMaxClauses,
+                               @Value("${risk.analysis.batch.max-tokens:8000}") int batchMaxTokens) {
+        this.openAiClient = openAiClient;
+        this.embeddingProvider = embeddingProvider;
+        this.regulationMatcher = regulationMatcher;
+        this.verdictCache = verdictCache;
+        this.stageTimers = stageTimers;
+        this.globalPermits = new Semaphore(Math.max(1, maxConcurrency), true);
+        this.perContractConcurrency = Math.max(1, perContractConcurrency);
+        this.batchMaxClauses = Math.max(1, batchMaxClauses);
+        this.batchMaxTokens = batchMaxTokens;
+    }
+
+    /**
+     * @param completed results restored from checkpoints, keyed by chunk index; those chunks are neither
+     *                  embedded nor evaluated again and the listener is only called for the remaining ones
+     */
+    public List<ChunkResult> analyze(List<String> chunks, List<String> categories, double threshold,
+                                     String language, Map<Integer, ChunkResult> completed,
+                                     ProgressListener listener) throws Exception {
+        int total = chunks.size();
+        List<Integer> pending = new ArrayList<>(total - completed.size());
+        for (int i = 0; i < total; i++) {
+            if (!completed.containsKey(i)) pending.add(i);
+        }
+
+        // OpenAI requests of this contract share one fair queue in the rate governor
+        Object caller = new Object();
+        List<List<Regulation>> matches = List.of();
+        if (!pending.isEmpty()) {
+            Timer.Sample embedding = Timer.start();
+            List<float[]> embeddings = OpenAiRateGovernor.callAs(caller,
+                    () -> embeddingProvider.embed(pending.stream().map(chunks::get).toList()));
+            embedding.stop(stageTimers.get(AnalysisStageTimers.Stage.EMBED));
+
+            Timer.Sample search = Timer.start();
+            matches = regulationMatcher.findSimilarBatch(embeddings, threshold, categories);
+            search.stop(stageTimers.get(AnalysisStageTimers.Stage.SEARCH));
+        }
+        Semaphore contractPermits = new Semaphore(perContractConcurrency, true);
+        ProgressTracker tracker = new ProgressTracker(total, completed.size(), listener);
+        ChunkResult[] results = new ChunkResult[total];
+        completed.forEach((index, result) -> results[index] = result);
+
+        // Chunks without a matched regulation or with a cached verdict need no chat request
+        Map<Integer, List<Regulation>> toEvaluate = new LinkedHashMap<>();
+        for (int i = 0; i < pending.size(); i++) {
+            int index = pending.get(i);
+            List<Regulation> matched = matches.get(i);
+            Optional<OpenAiClient.RiskAnalysis> cached = matched.isEmpty()
+                    ? Optional.empty() : verdictCache.find(chunks.get(index), matched, language);
+            if (!matched.isEmpty() && cached.isEmpty()) {
+                toEvaluate.put(index, matched);
+                continue;
+            }
+            results[index] = new ChunkResult(index, chunks.get(index), matched, cached.orElse(null));
+            tracker.chunkDone(results[index]);
+        }
+
+        Timer.Sample evaluation = Timer.start();
+        List<Future<List<ChunkResult>>> futures = new ArrayList<>();
+        for (Map<Integer, OpenAiClient.RiskItem> batch : batches(toEvaluate, chunks)) {
+            futures.add(executor.submit(() -> {
+                contractPermits.acquire();
+                try {
+                    globalPermits.acquire();
+                    try {
+                        List<ChunkResult> batchResults = OpenAiRateGovernor.callAs(caller,
+                                () -> evaluate(batch, toEvaluate, language));
+                        batchResults.forEach(tracker::chunkDone);
+                        return batchResults;
+                    } finally {
+                        globalPermits.release();
+                    }
+                } finally {
+                    contractPermits.release();
+                }
+            }));
+        }
+
+        try {
+            for (Future<List<ChunkResult>> future : futures) {
+                for (ChunkResult result : future.get()) {
+                    results[result.index()] = result;
+                }
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        if (!futures.isEmpty()) {
+            evaluation.stop(stageTimers.get(AnalysisStageTimers.Stage.EVALUATE));
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Packs the chunks to evaluate, in document order, into batches of at most batchMaxClauses texts and
+     * batchMaxTokens estimated prompt tokens. A chunk larger than the token budget gets a batch of its own.
+     */
+    private List<Map<Integer, OpenAiClient.RiskItem>> batches(Map<Integer, List<Regulation>> toEvaluate,
+                                                              List<String> chunks) {
+        List<Map<Integer, OpenAiClient.RiskItem>> batches = new ArrayList<>();
+        Map<Integer, OpenAiClient.RiskItem> batch = new LinkedHashMap<>();
+        int tokens = 0;
+        for (Map.Entry<Integer, List<Regulation>> entry : toEvaluate.entrySet()) {
+            List<String> regNames = entry.getValue().stream()
+                    .map(r -> r.getName() + ": " + r.getDescription())
+                    .toList();
+            OpenAiClient.RiskItem item = new OpenAiClient.RiskItem(chunks.get(entry.getKey()), regNames);
+            int estimate = item.estimatedTokens();
+            if (!batch.isEmpty() && (batch.size() >= batchMaxClauses || tokens + estimate > batchMaxTokens)) {
+                batches.add(batch);
+                batch = new LinkedHashMap<>();
+                tokens = 0;
+            }
+            batch.put(entry.getKey(), item);
+            tokens += estimate;
+        }
+        if (!batch.isEmpty()) batches.add(batch);
+        return batches;
+    }
+
+    private List<ChunkResult> evaluate(Map<Integer, OpenAiClient.RiskItem> batch,
+                                       Map<Integer, List<Regulation>> matchedRegs, String language) throws Exception {
+        List<OpenAiClient.RiskAnalysis> verdicts = openAiClient.analyzeRiskBatch(List.copyOf(batch.values()), language);
+
+        List<ChunkResult> results = new ArrayList<>(batch.size());
+        int i = 0;
+        for (Map.Entry<Integer, OpenAiClient.RiskItem> entry : batch.entrySet()) {
+            int index = entry.getKey();
+            String chunk = entry.getValue().clause();
+            OpenAiClient.RiskAnalysis analysis = verdicts.get(i++);
+            verdictCache.put(chunk, matchedRegs.get(index), language, analysis);
+            results.add(new ChunkResult(index, chunk, matchedRegs.get(index), analysis));
+        }
+        return results;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Serializes progress callbacks so listeners observe a monotonically increasing count,
+     * even though chunks complete out of order.
+     */
+    private static class ProgressTracker {
+        private final int total;
+        private final ProgressListener listener;
+        private final AtomicInteger completed;
+
+        ProgressTracker(int total, int alreadyCompleted, ProgressListener listener) {
+            this.total = total;
+            this.completed = new AtomicInteger(alreadyCompleted);
+            this.listener = listener;
+        }
+
+        // Not synchronized: the listener persists a checkpoint and publishes progress, which must not
+        // hold up the other chunks finishing meanwhile
+        void chunkDone(ChunkResult result) {
+            int done = completed.incrementAndGet();
+            try {
+                listener.onChunkCompleted(done, total, result);
+            } catch (Exception e) {
+                log.warn("Progress listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Called once per analyzed chunk, possibly from several threads at once.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onChunkCompleted(int completed, int total, ChunkResult result);
+    }
+
+    /**
+     * @param analysis null when no regulation matched the chunk
+     */
+    public record ChunkResult(int index, String chunk, List<Regulation> matchedRegulations,
+                              OpenAiClient.RiskAnalysis analysis) {}
+}
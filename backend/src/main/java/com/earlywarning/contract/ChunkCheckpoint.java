@@ -0,0 +1,66 @@
+package com.earlywarning.contract;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted outcome of one analyzed chunk, written as soon as the chunk completes so that a retried
+ * or restarted analysis only reprocesses the chunks that never finished.
+ */
+@Entity
+@Table(name = "chunk_checkpoint", uniqueConstraints = {
+        @UniqueConstraint(name = "chunk_checkpoint_contract_chunk_uk", columnNames = {"contract_id", "chunk_index"})
+})
+@Getter @Setter
+@NoArgsConstructor
+public class ChunkCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "contract_id", nullable = false)
+    private Long contractId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    // SHA-256 of the chunk text
+    @Column(name = "chunk_hash", length = 64, nullable = false)
+    private String chunkHash;
+
+    // SHA-256 of the chunk with whitespace and clause numbering normalized, to match clauses across revisions
+    @Column(name = "normalized_hash", length = 64)
+    private String normalizedHash;
+
+    // Key of the chunk's entry in embedding_cache
+    @Column(name = "embedding_key", length = 64)
+    private String embeddingKey;
+
+    // Matched regulation ids in ",1,5,9," form, empty when nothing matched
+    @Column(name = "regulation_ids", columnDefinition = "TEXT")
+    private String regulationIds;
+
+    // "id:contentHash" of each matched regulation, to detect regulations updated since the checkpoint
+    @Column(name = "regulation_signature", columnDefinition = "TEXT")
+    private String regulationSignature;
+
+    // HIGH, MEDIUM, LOW or NONE; null when no regulation matched
+    private String level;
+
+    @Column(columnDefinition = "TEXT")
+    private String clause;
+
+    @Column(columnDefinition = "TEXT")
+    private String reason;
+
+    @Column(columnDefinition = "TEXT")
+    private String suggestion;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,27 @@
+package com.earlywarning.contract;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ChunkCheckpointRepository extends JpaRepository<ChunkCheckpoint, Long> {
+
+    List<ChunkCheckpoint> findByContractIdOrderByChunkIndex(Long contractId);
+
+    boolean existsByContractId(Long contractId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChunkCheckpoint c WHERE c.contractId = :contractId")
+    int deleteByContractId(@Param("contractId") Long contractId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChunkCheckpoint c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
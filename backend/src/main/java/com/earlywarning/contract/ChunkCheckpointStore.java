@@ -0,0 +1,219 @@
+package com.earlywarning.contract;
+
+import com.earlywarning.common.OpenAiClient;
+import com.earlywarning.embedding.EmbeddingCache;
+import com.earlywarning.embedding.EmbeddingProvider;
+import com.earlywarning.regulation.Regulation;
+import com.earlywarning.regulation.RegulationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Saves each analyzed chunk of a contract as a {@link ChunkCheckpoint} and restores them on the next attempt.
+ * A checkpoint is only reused when the chunk at its index still has the same text and none of its matched
+ * regulations have been updated since; anything else is discarded and the chunk is analyzed again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChunkCheckpointStore {
+
+    // Clause headings as recognized by TextChunker, plus numbered sub-items
+    private static final Pattern CLAUSE_NUMBER = Pattern.compile(
+            "제\\s*\\d+\\s*조|(?i:section|article)\\s+[\\dIVXivx]+|(?m)^\\s*\\d+(?:\\.\\d+)*\\.");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ChunkCheckpointRepository checkpointRepository;
+    private final RegulationRepository regulationRepository;
+    private final EmbeddingCache embeddingCache;
+    private final EmbeddingProvider embeddingProvider;
+
+    /**
+     * @return results of the chunks already completed for this contract, keyed by chunk index
+     */
+    public Map<Integer, ChunkAnalysisEngine.ChunkResult> loadCompleted(Long contractId, List<String> chunks) {
+        List<ChunkCheckpoint> checkpoints = checkpointRepository.findByContractIdOrderByChunkIndex(contractId);
+        if (checkpoints.isEmpty()) return Map.of();
+
+        Set<Long> regulationIds = new HashSet<>();
+        for (ChunkCheckpoint c : checkpoints) regulationIds.addAll(parseIds(c.getRegulationIds()));
+        Map<Long, Regulation> regulations = regulationRepository.findAllById(regulationIds).stream()
+                .collect(Collectors.toMap(Regulation::getId, Function.identity()));
+
+        Map<Integer, ChunkAnalysisEngine.ChunkResult> completed = new HashMap<>();
+        List<Long> stale = new ArrayList<>();
+        for (ChunkCheckpoint c : checkpoints) {
+            int index = c.getChunkIndex();
+            if (index >= chunks.size() || !hash(chunks.get(index)).equals(c.getChunkHash())) {
+                stale.add(c.getId());
+                continue;
+            }
+            List<Regulation> matched = new ArrayList<>();
+            for (Long id : parseIds(c.getRegulationIds())) {
+                Regulation r = regulations.get(id);
+                if (r != null) matched.add(r);
+            }
+            String level = OpenAiClient.normalizeRiskLevel(c.getLevel());
+            // A level that is not a valid verdict would fail the analysis on every attempt
+            if (!signature(matched).equals(Objects.toString(c.getRegulationSignature(), ""))
+                    || (c.getLevel() != null && level == null)) {
+                stale.add(c.getId());
+                continue;
+            }
+            OpenAiClient.RiskAnalysis analysis = level == null ? null
+                    : new OpenAiClient.RiskAnalysis(c.getClause(), level, c.getReason(), c.getSuggestion());
+            completed.put(index, new ChunkAnalysisEngine.ChunkResult(index, chunks.get(index), matched, analysis));
+        }
+
+        if (!stale.isEmpty()) {
+            checkpointRepository.deleteByIdIn(stale);
+            log.info("Discarded {} stale chunk checkpoints for contract {}", stale.size(), contractId);
+        }
+        return completed;
+    }
+
+    /**
+     * Copies the checkpoints of a previous revision onto the chunks of a new one whose text is unchanged
+     * apart from whitespace and clause numbering, wherever they now sit in the document. Only the
+     * remaining (new or edited) chunks are then embedded and evaluated; seeded checkpoints still go
+     * through the regulation check in {@link #loadCompleted}.
+     *
+     * @return number of chunks seeded
+     */
+    public int seedFromPrevious(Long previousContractId, Long contractId, List<String> chunks) {
+        if (checkpointRepository.existsByContractId(contractId)) return 0;
+
+        Map<String, ChunkCheckpoint> previous = new HashMap<>();
+        for (ChunkCheckpoint c : checkpointRepository.findByContractIdOrderByChunkIndex(previousContractId)) {
+            if (c.getNormalizedHash() != null) previous.putIfAbsent(c.getNormalizedHash(), c);
+        }
+        if (previous.isEmpty()) return 0;
+
+        List<ChunkCheckpoint> seeded = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            ChunkCheckpoint source = previous.get(normalizedHash(chunk));
+            if (source == null || (source.getLevel() != null && OpenAiClient.normalizeRiskLevel(source.getLevel()) == null)) {
+                continue;
+            }
+
+            ChunkCheckpoint copy = newCheckpoint(contractId, i, chunk);
+            copy.setRegulationIds(source.getRegulationIds());
+            copy.setRegulationSignature(source.getRegulationSignature());
+            copy.setLevel(source.getLevel());
+            copy.setClause(source.getClause());
+            copy.setReason(source.getReason());
+            copy.setSuggestion(source.getSuggestion());
+            seeded.add(copy);
+        }
+        checkpointRepository.saveAll(seeded);
+        return seeded.size();
+    }
+
+    /**
+     * Gives a contract that reuses the analysis of an identical one the same checkpoints, so a later
+     * revision based on the copy can be seeded from it like from the original.
+     *
+     * @return number of checkpoints copied
+     */
+    public int copy(Long sourceContractId, Long contractId) {
+        List<ChunkCheckpoint> copies = new ArrayList<>();
+        for (ChunkCheckpoint source : checkpointRepository.findByContractIdOrderByChunkIndex(sourceContractId)) {
+            ChunkCheckpoint copy = new ChunkCheckpoint();
+            copy.setContractId(contractId);
+            copy.setChunkIndex(source.getChunkIndex());
+            copy.setChunkHash(source.getChunkHash());
+            copy.setNormalizedHash(source.getNormalizedHash());
+            copy.setEmbeddingKey(source.getEmbeddingKey());
+            copy.setRegulationIds(source.getRegulationIds());
+            copy.setRegulationSignature(source.getRegulationSignature());
+            copy.setLevel(source.getLevel());
+            copy.setClause(source.getClause());
+            copy.setReason(source.getReason());
+            copy.setSuggestion(source.getSuggestion());
+            copies.add(copy);
+        }
+        checkpointRepository.saveAll(copies);
+        return copies.size();
+    }
+
+    public void save(Long contractId, ChunkAnalysisEngine.ChunkResult result) {
+        ChunkCheckpoint checkpoint = newCheckpoint(contractId, result.index(), result.chunk());
+        List<Regulation> matched = result.matchedRegulations();
+        checkpoint.setRegulationIds(matched.isEmpty() ? "" : matched.stream()
+                .map(r -> String.valueOf(r.getId()))
+                .collect(Collectors.joining(",", ",", ",")));
+        checkpoint.setRegulationSignature(signature(matched));
+        OpenAiClient.RiskAnalysis analysis = result.analysis();
+        if (analysis != null) {
+            String level = OpenAiClient.normalizeRiskLevel(analysis.level());
+            if (level == null) {
+                log.warn("Not checkpointing chunk {} of contract {}: invalid risk level {}",
+                        result.index(), contractId, analysis.level());
+                return;
+            }
+            checkpoint.setLevel(level);
+            checkpoint.setClause(analysis.clause());
+            checkpoint.setReason(analysis.reason());
+            checkpoint.setSuggestion(analysis.suggestion());
+        }
+        try {
+            checkpointRepository.save(checkpoint);
+        } catch (Exception e) {
+            // A previous attempt whose lease expired may have checkpointed the same chunk
+            log.warn("Could not checkpoint chunk {} of contract {}: {}", result.index(), contractId, e.getMessage());
+        }
+    }
+
+    private ChunkCheckpoint newCheckpoint(Long contractId, int index, String chunk) {
+        ChunkCheckpoint checkpoint = new ChunkCheckpoint();
+        checkpoint.setContractId(contractId);
+        checkpoint.setChunkIndex(index);
+        checkpoint.setChunkHash(hash(chunk));
+        checkpoint.setNormalizedHash(normalizedHash(chunk));
+        checkpoint.setEmbeddingKey(embeddingCache.key(embeddingProvider.id(), chunk));
+        return checkpoint;
+    }
+
+    public void clear(Long contractId) {
+        checkpointRepository.deleteByContractId(contractId);
+    }
+
+    private static String signature(List<Regulation> regulations) {
+        return regulations.stream()
+                .sorted(Comparator.comparing(Regulation::getId))
+                .map(r -> r.getId() + ":" + r.getContentHash())
+                .collect(Collectors.joining(","));
+    }
+
+    private static List<Long> parseIds(String ids) {
+        if (ids == null || ids.isBlank()) return List.of();
+        return Arrays.stream(ids.split(","))
+                .filter(s -> !s.isEmpty())
+                .map(Long::valueOf)
+                .toList();
+    }
+
+    static String normalizedHash(String chunk) {
+        String text = CLAUSE_NUMBER.matcher(chunk).replaceAll("#");
+        return hash(WHITESPACE.matcher(text).replaceAll(" ").trim());
+    }
+
+    static String hash(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
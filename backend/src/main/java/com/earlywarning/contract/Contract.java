@@ -9,7 +9,10 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "contract")
+@Table(name = "contract", indexes = {
+        @Index(name = "contract_user_file_hash_idx", columnList = "user_id, file_hash"),
+        @Index(name = "contract_user_text_hash_idx", columnList = "user_id, text_hash")
+})
 @Getter @Setter
 @NoArgsConstructor
 public class Contract {
@@ -20,9 +23,6 @@ public class Contract {
 
     private String filename;
 
-    @Column(columnDefinition = "TEXT")
-    private String content;
-
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -38,6 +38,22 @@ public class Contract {
 
     private String language = "ko";
 
+    // Earlier revision of this contract whose per-chunk results are reused by incremental analysis
+    @Column(name = "base_contract_id")
+    private Long baseContractId;
+
+    // SHA-256 of the uploaded file
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    // SHA-256 of the extracted text with whitespace runs collapsed, so re-exported copies of a file match
+    @Column(name = "text_hash", length = 64)
+    private String textHash;
+
+    // RegulationCorpus version the analysis ran under; a completed analysis is reused only under the same one
+    @Column(name = "corpus_version", length = 64)
+    private String corpusVersion;
+
     public enum AnalysisStatus {
         ANALYZING, COMPLETED, FAILED
     }
@@ -0,0 +1,29 @@
+package com.earlywarning.contract;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Extracted text of a contract, kept out of the contract row so that loading contracts, e.g. to list them,
+ * never reads it. Only the analysis, the detail view and deduplication read the text, by contract id.
+ */
+@Entity
+@Table(name = "contract_content")
+@Getter @Setter
+@NoArgsConstructor
+public class ContractContent {
+
+    @Id
+    @Column(name = "contract_id")
+    private Long contractId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String text;
+
+    public ContractContent(Long contractId, String text) {
+        this.contractId = contractId;
+        this.text = text;
+    }
+}
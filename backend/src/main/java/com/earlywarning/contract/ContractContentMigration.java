@@ -0,0 +1,81 @@
+package com.earlywarning.contract;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies the text of contracts stored before {@link ContractContent} from the contract.content column to
+ * contract_content. The old column and its data are left in place, so the text of those contracts is still
+ * there if this version has to be rolled back; dropping it is left to a later cleanup migration. Contracts
+ * already copied are skipped, so the copy can run on every startup.
+ * <p>
+ * Also adds the foreign key from contract_content to contract with ON DELETE CASCADE, which Hibernate does
+ * not create as the entity only holds the id. Contract ids are reused after deletes (the sequences are reset),
+ * so text left behind by a deleted contract would otherwise show up as the text of a new one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContractContentMigration implements CommandLineRunner {
+
+    private static final String FOREIGN_KEY = "fk_contract_content_contract";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        copyContent();
+        addForeignKey();
+    }
+
+    private void copyContent() {
+        try {
+            Integer columns = jdbcTemplate.queryForObject("""
+                    SELECT count(*) FROM information_schema.columns
+                    WHERE table_name = 'contract' AND column_name = 'content'
+                    """, Integer.class);
+            if (columns == null || columns == 0) return;
+
+            int copied = jdbcTemplate.update("""
+                    INSERT INTO contract_content (contract_id, text)
+                    SELECT c.id, c.content FROM contract c
+                    WHERE c.content IS NOT NULL
+                      AND NOT EXISTS (SELECT 1 FROM contract_content cc WHERE cc.contract_id = c.id)
+                    ON CONFLICT (contract_id) DO NOTHING
+                    """);
+            if (copied > 0) {
+                log.info("Copied the text of {} contracts to contract_content", copied);
+            }
+        } catch (Exception e) {
+            log.warn("Could not copy contract.content to contract_content: {}", e.getMessage());
+        }
+    }
+
+    private void addForeignKey() {
+        try {
+            Integer constraints = jdbcTemplate.queryForObject("""
+                    SELECT count(*) FROM information_schema.table_constraints
+                    WHERE table_name = 'contract_content' AND constraint_name = ?
+                    """, Integer.class, FOREIGN_KEY);
+            if (constraints != null && constraints > 0) return;
+
+            int orphans = jdbcTemplate.update("""
+                    DELETE FROM contract_content cc
+                    WHERE NOT EXISTS (SELECT 1 FROM contract c WHERE c.id = cc.contract_id)
+                    """);
+            if (orphans > 0) {
+                log.info("Deleted the text of {} contracts that no longer exist", orphans);
+            }
+            jdbcTemplate.execute("""
+                    ALTER TABLE contract_content ADD CONSTRAINT %s
+                    FOREIGN KEY (contract_id) REFERENCES contract (id) ON DELETE CASCADE
+                    """.formatted(FOREIGN_KEY));
+            log.info("Added foreign key {} on contract_content", FOREIGN_KEY);
+        } catch (Exception e) {
+            log.warn("Could not add the contract_content foreign key: {}", e.getMessage());
+        }
+    }
+}
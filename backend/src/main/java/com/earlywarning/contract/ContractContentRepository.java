@@ -0,0 +1,19 @@
+package com.earlywarning.contract;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ContractContentRepository extends JpaRepository<ContractContent, Long> {
+
+    @Query("SELECT c.text FROM ContractContent c WHERE c.contractId = :contractId")
+    Optional<String> findTextByContractId(@Param("contractId") Long contractId);
+
+    // Bulk delete, so the text is not loaded just to remove it
+    @Modifying
+    @Query("DELETE FROM ContractContent c WHERE c.contractId = :contractId")
+    void deleteByContractId(@Param("contractId") Long contractId);
+}
@@ -29,15 +29,16 @@ public class ContractController {
     @PostMapping
     public ResponseEntity<?> upload(@RequestParam("file") MultipartFile file,
                                      @RequestParam(defaultValue = "GENERAL") String industry,
+                                     @RequestParam(required = false) Long baseContractId,
                                      Principal principal) {
         try {
-            Contract contract = contractService.uploadAndStartAnalysis(file, principal.getName(), industry);
-            contractService.analyzeAsync(contract.getId());
+            Contract contract = contractService.uploadAndStartAnalysis(file, principal.getName(), industry, baseContractId);
             return ResponseEntity.ok(Map.of(
                     "id", contract.getId(),
                     "filename", contract.getFilename(),
                     "status", contract.getStatus().name(),
-                    "message", "Analysis started"
+                    "message", contract.getStatus() == Contract.AnalysisStatus.COMPLETED
+                            ? "Analysis reused from an identical contract" : "Analysis started"
             ));
         } catch (IOException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -46,19 +47,23 @@ public class ContractController {
 
     @GetMapping
     public ResponseEntity<List<ContractSummaryDto>> list(Principal principal) {
-        List<Contract> contracts = contractService.findByUserEmail(principal.getName());
+        List<ContractSummary> contracts = contractService.findByUserEmail(principal.getName());
+        Map<Long, Map<Risk.RiskLevel, Long>> riskCounts = riskService.countByLevelPerContract(principal.getName());
         List<ContractSummaryDto> dtos = contracts.stream()
-                .map(c -> new ContractSummaryDto(
-                        c.getId(),
-                        c.getFilename(),
-                        c.getStatus().name(),
-                        c.getCreatedAt(),
-                        new RiskSummaryDto(
-                                riskService.countByContractIdAndLevel(c.getId(), Risk.RiskLevel.HIGH),
-                                riskService.countByContractIdAndLevel(c.getId(), Risk.RiskLevel.MEDIUM),
-                                riskService.countByContractIdAndLevel(c.getId(), Risk.RiskLevel.LOW)
-                        )
-                ))
+                .map(c -> {
+                    Map<Risk.RiskLevel, Long> counts = riskCounts.getOrDefault(c.id(), Map.of());
+                    return new ContractSummaryDto(
+                            c.id(),
+                            c.filename(),
+                            c.status().name(),
+                            c.createdAt(),
+                            new RiskSummaryDto(
+                                    counts.getOrDefault(Risk.RiskLevel.HIGH, 0L),
+                                    counts.getOrDefault(Risk.RiskLevel.MEDIUM, 0L),
+                                    counts.getOrDefault(Risk.RiskLevel.LOW, 0L)
+                            )
+                    );
+                })
                 .toList();
         return ResponseEntity.ok(dtos);
     }
@@ -69,7 +74,7 @@ public class ContractController {
         return ResponseEntity.ok(new ContractDetailDto(
                 contract.getId(),
                 contract.getFilename(),
-                contract.getContent(),
+                contractService.findContent(contract.getId()),
                 contract.getStatus().name(),
                 contract.getCreatedAt()
         ));
@@ -91,7 +96,7 @@ public class ContractController {
     public ResponseEntity<List<RiskDto>> getRisks(@PathVariable Long id) {
         List<Risk> risks = riskService.findByContractId(id);
         List<RiskDto> dtos = risks.stream()
-                .map(r -> new RiskDto(r.getId(), r.getClause(), r.getLevel().name()))
+                .map(r -> new RiskDto(r.getId(), r.getClause(), r.getLevel().name(), r.getClauseStart(), r.getClauseEnd()))
                 .toList();
         return ResponseEntity.ok(dtos);
     }
@@ -108,7 +113,6 @@ public class ContractController {
     @PostMapping("/{id}/reanalyze")
     public ResponseEntity<?> reanalyze(@PathVariable Long id, Principal principal) {
         Contract contract = contractService.reanalyze(id, principal.getName());
-        contractService.analyzeAsync(contract.getId());
         return ResponseEntity.ok(Map.of(
                 "id", contract.getId(),
                 "status", contract.getStatus().name(),
@@ -124,5 +128,5 @@ public class ContractController {
     record ContractSummaryDto(Long id, String filename, String status, LocalDateTime createdAt, RiskSummaryDto riskSummary) {}
     record RiskSummaryDto(long high, long medium, long low) {}
     record ContractDetailDto(Long id, String filename, String content, String status, LocalDateTime createdAt) {}
-    record RiskDto(Long id, String clause, String level) {}
+    record RiskDto(Long id, String clause, String level, Integer clauseStart, Integer clauseEnd) {}
 }
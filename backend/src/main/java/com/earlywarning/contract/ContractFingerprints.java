@@ -0,0 +1,50 @@
+package com.earlywarning.contract;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content hashes used to recognize a contract that was already analyzed.
+ */
+final class ContractFingerprints {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ContractFingerprints() {
+    }
+
+    /**
+     * Streams the upload, so it must be called before the file is moved by {@link MultipartFile#transferTo}.
+     */
+    static String fileHash(MultipartFile file) throws IOException {
+        MessageDigest md = sha256();
+        try (InputStream in = file.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    static String textHash(String text) {
+        String normalized = WHITESPACE.matcher(text).replaceAll(" ").strip();
+        return HexFormat.of().formatHex(sha256().digest(normalized.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
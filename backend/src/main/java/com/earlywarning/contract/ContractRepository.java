@@ -1,6 +1,9 @@
 package com.earlywarning.contract;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -9,9 +12,24 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
 
     List<Contract> findByUserEmailOrderByCreatedAtDesc(String email);
 
+    @Query("""
+            SELECT new com.earlywarning.contract.ContractSummary(c.id, c.filename, c.status, c.createdAt)
+            FROM Contract c WHERE c.user.email = :email ORDER BY c.createdAt DESC
+            """)
+    List<ContractSummary> findSummariesByUserEmail(@Param("email") String email, Limit limit);
+
     Optional<Contract> findByIdAndUserEmail(Long id, String email);
 
     long countByUserEmail(String email);
 
     List<Contract> findByStatus(Contract.AnalysisStatus status);
+
+    Optional<Contract> findFirstByUserEmailAndFilenameAndIndustryAndStatusOrderByCreatedAtDesc(
+            String email, String filename, String industry, Contract.AnalysisStatus status);
+
+    Optional<Contract> findFirstByUserEmailAndFileHashAndIndustryAndCorpusVersionAndStatusOrderByCreatedAtDesc(
+            String email, String fileHash, String industry, String corpusVersion, Contract.AnalysisStatus status);
+
+    Optional<Contract> findFirstByUserEmailAndTextHashAndIndustryAndCorpusVersionAndStatusOrderByCreatedAtDesc(
+            String email, String textHash, String industry, String corpusVersion, Contract.AnalysisStatus status);
 }
@@ -8,26 +8,27 @@ import com.earlywarning.auth.UserRepository;
 import com.earlywarning.common.LanguageDetector;
 import com.earlywarning.common.OpenAiClient;
 import com.earlywarning.common.TextChunker;
+import com.earlywarning.embedding.EmbeddingProvider;
 import com.earlywarning.regulation.Regulation;
-import com.earlywarning.regulation.RegulationRepository;
+import com.earlywarning.regulation.RegulationCorpus;
 import com.earlywarning.risk.Risk;
 import com.earlywarning.risk.RiskRepository;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
@@ -35,6 +36,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -43,141 +46,390 @@ import java.util.stream.Collectors;
 public class ContractService {
 
     private final ContractRepository contractRepository;
+    private final ContractContentRepository contentRepository;
     private final RiskRepository riskRepository;
     private final AlertRepository alertRepository;
     private final AlertService alertService;
-    private final RegulationRepository regulationRepository;
     private final UserRepository userRepository;
-    private final OpenAiClient openAiClient;
     private final TextChunker textChunker;
+    private final ChunkAnalysisEngine analysisEngine;
     private final AnalysisProgressEmitter progressEmitter;
+    private final AnalysisJobQueue analysisJobQueue;
+    private final AnalysisJobRepository analysisJobRepository;
+    private final ChunkCheckpointStore checkpointStore;
+    private final ContractTextExtractor textExtractor;
+    private final EmbeddingProvider embeddingProvider;
+    private final AnalysisStageTimers stageTimers;
+    private final RegulationCorpus regulationCorpus;
+    private final TransactionTemplate transactionTemplate;
     private final EntityManager entityManager;
 
     @Value("${risk.similarity-threshold}")
     private double similarityThreshold;
 
+    @Value("${analysis.incremental.enabled:true}")
+    private boolean incrementalAnalysis;
+
+    @Value("${contract.extraction.prefetch-embeddings:true}")
+    private boolean prefetchEmbeddings;
+
+    @Value("${contract.deduplication.enabled:true}")
+    private boolean deduplication;
+
     private static final Map<String, List<String>> INDUSTRY_CATEGORIES = Map.of(
             "REAL_ESTATE", List.of("약관규제", "소비자보호", "공정거래위원회"),
             "EMPLOYMENT", List.of("고용노동부", "약관규제", "공정거래위원회"),
             "TAX_ACCOUNTING", List.of("국세청", "약관규제", "공정거래위원회", "소비자보호")
     );
 
-    @Transactional
-    public Contract uploadAndStartAnalysis(MultipartFile file, String userEmail, String industry) throws IOException {
-        String content = extractText(file);
-
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userEmail));
-
-        Contract contract = new Contract();
-        contract.setFilename(file.getOriginalFilename());
-        contract.setContent(content);
-        contract.setUser(user);
-        contract.setIndustry(industry);
-        contract.setLanguage(LanguageDetector.detect(content));
-        contract.setStatus(Contract.AnalysisStatus.ANALYZING);
-        contractRepository.save(contract);
-
-        return contract;
-    }
-
-    @Async
-    public void analyzeAsync(Long contractId) {
-        try {
-            Contract contract = contractRepository.findById(contractId)
-                    .orElseThrow(() -> new IllegalArgumentException("Contract not found: " + contractId));
-
-            String lang = contract.getLanguage() != null ? contract.getLanguage() : "ko";
-            boolean isEn = "en".equals(lang);
+    /**
+     * Text extraction runs before the transaction, so a large PDF does not hold a database connection.
+     * When the user already has a completed analysis of the same file or text, in the same industry and
+     * under the current {@link RegulationCorpus} version, its risks are copied instead of analyzing again.
+     *
+     * @param baseContractId previous revision to analyze incrementally against; when null and incremental
+     *                       analysis is enabled, the user's latest completed contract with the same filename
+     *                       and industry is used
+     */
+    public Contract uploadAndStartAnalysis(MultipartFile file, String userEmail, String industry,
+                                           Long baseContractId) throws IOException {
+        String fileHash = ContractFingerprints.fileHash(file);
+        String corpusVersion = deduplication ? regulationCorpus.version() : null;
+        Contract fileMatch = corpusVersion == null ? null : contractRepository
+                .findFirstByUserEmailAndFileHashAndIndustryAndCorpusVersionAndStatusOrderByCreatedAtDesc(
+                        userEmail, fileHash, industry, corpusVersion, Contract.AnalysisStatus.COMPLETED)
+                .orElse(null);
+        String storedText = fileMatch == null ? null
+                : contentRepository.findTextByContractId(fileMatch.getId()).orElse(null);
+        Contract sameFile = storedText != null ? fileMatch : null;
+
+        String content;
+        if (storedText != null) {
+            content = storedText;
+        } else {
+            Timer.Sample extraction = Timer.start();
+            content = prefetchEmbeddings
+                    ? textExtractor.extract(file, embeddingPrefetch())
+                    : textExtractor.extract(file);
+            extraction.stop(stageTimers.get(AnalysisStageTimers.Stage.EXTRACT));
+        }
+        String textHash = ContractFingerprints.textHash(content);
+
+        Upload upload = transactionTemplate.execute(status -> {
+            User user = userRepository.findByEmail(userEmail)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found: " + userEmail));
+
+            Contract contract = new Contract();
+            contract.setFilename(file.getOriginalFilename());
+            contract.setFileHash(fileHash);
+            contract.setTextHash(textHash);
+            contract.setUser(user);
+            contract.setIndustry(industry);
+            contract.setLanguage(LanguageDetector.detect(content));
+
+            Contract source = sameFile;
+            if (source == null && corpusVersion != null) {
+                source = contractRepository
+                        .findFirstByUserEmailAndTextHashAndIndustryAndCorpusVersionAndStatusOrderByCreatedAtDesc(
+                                userEmail, textHash, industry, corpusVersion, Contract.AnalysisStatus.COMPLETED)
+                        .orElse(null);
+            }
+            if (source != null) {
+                contract.setStatus(Contract.AnalysisStatus.COMPLETED);
+                contract.setCorpusVersion(corpusVersion);
+                contractRepository.save(contract);
+                contentRepository.save(new ContractContent(contract.getId(), content));
+                List<Risk> risks = copyRisks(source, contract, content);
+                checkpointStore.copy(source.getId(), contract.getId());
+                log.info("Contract {}: reusing the analysis of identical contract {} ({} risks, matched by {})",
+                        contract.getId(), source.getId(), risks.size(), source == sameFile ? "file" : "text");
+                return new Upload(contract, source, risks);
+            }
 
-            progressEmitter.send(contractId, "EXTRACTING",
-                    isEn ? "Extracting text..." : "텍스트 추출 중...", 0, 0);
+            contract.setStatus(Contract.AnalysisStatus.ANALYZING);
+            if (incrementalAnalysis) {
+                contract.setBaseContractId(resolveBaseContract(baseContractId, userEmail, contract));
+            }
+            contractRepository.save(contract);
+            contentRepository.save(new ContractContent(contract.getId(), content));
+            analysisJobQueue.enqueue(contract.getId(), AnalysisJobQueue.PRIORITY_UPLOAD);
+            return new Upload(contract, null, List.of());
+        });
 
-            List<String> chunks = textChunker.chunk(contract.getContent());
-            int totalChunks = chunks.size();
+        if (upload.source() != null) {
+            copyAlerts(upload.source(), upload.contract(), upload.risks());
+        }
+        return upload.contract();
+    }
 
-            // Resolve industry → category list
-            String industry = contract.getIndustry() != null ? contract.getIndustry() : "GENERAL";
-            List<String> categories = INDUSTRY_CATEGORIES.get(industry);
+    private record Upload(Contract contract, Contract source, List<Risk> risks) {}
+
+    /**
+     * Copies in clause order. The copied text may differ from the source in whitespace, in which case the
+     * clause offsets are located again.
+     */
+    private List<Risk> copyRisks(Contract source, Contract target, String content) {
+        boolean sameText = target.getFileHash().equals(source.getFileHash())
+                || content.equals(findContent(source.getId()));
+        List<Risk> risks = new ArrayList<>();
+        int from = 0;
+        for (Risk original : riskRepository.findByContractIdOrderByIdAsc(source.getId())) {
+            Risk risk = new Risk();
+            risk.setContract(target);
+            risk.setClause(original.getClause());
+            risk.setLevel(original.getLevel());
+            risk.setReason(original.getReason());
+            risk.setSuggestion(original.getSuggestion());
+            if (sameText) {
+                risk.setClauseStart(original.getClauseStart());
+                risk.setClauseEnd(original.getClauseEnd());
+            } else {
+                // Searching on from the previous clause keeps a clause quoted twice at its own occurrence
+                locateClause(risk, content, from, content.length(), original.getClause());
+                if (risk.getClauseStart() == null && from > 0) {
+                    locateClause(risk, content, 0, content.length(), original.getClause());
+                }
+                if (risk.getClauseStart() != null) from = risk.getClauseStart();
+            }
+            risks.add(risk);
+        }
+        return riskRepository.saveAll(risks);
+    }
 
-            progressEmitter.send(contractId, "CHUNKING",
-                    isEn ? "Analyzing text..." : "텍스트 분석 중...", 0, totalChunks);
+    /**
+     * Raises the same alerts as the analysis of the source did, using the regulations its alerts refer to.
+     */
+    private void copyAlerts(Contract source, Contract target, List<Risk> risks) {
+        Set<Regulation> regulations = alertRepository.findWithRegulationByContractId(source.getId()).stream()
+                .map(RegulationAlert::getRegulation)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (regulations.isEmpty()) return;
+        int highCount = (int) risks.stream().filter(r -> r.getLevel() == Risk.RiskLevel.HIGH).count();
+        createAnalysisAlerts(target, regulations, risks.size(), highCount, target.getLanguage());
+    }
 
-            // Track matched regulations for alert creation
-            Set<Regulation> allMatchedRegulations = new LinkedHashSet<>();
-            int riskCount = 0;
-            int highCount = 0;
+    /**
+     * While the rest of a PDF is being extracted, starts embedding the chunks of the pages extracted so far,
+     * so the analysis job finds them in the embedding cache. The last chunks are held back because text from
+     * the next pages can still extend or merge into them; each call only chunks the text from the first
+     * held-back chunk (or its clause heading) onward, so the work per range stays proportional to the range.
+     */
+    private Consumer<CharSequence> embeddingPrefetch() {
+        Set<String> prefetched = new HashSet<>();
+        AtomicInteger from = new AtomicInteger();
+        return text -> {
+            try {
+                List<TextChunker.Chunk> chunks = textChunker.chunk(text.subSequence(from.get(), text.length()));
+                int stableCount = chunks.size() - 2;
+                if (stableCount <= 0) return;
+                TextChunker.Chunk next = chunks.get(stableCount);
+                from.addAndGet(next.hasHeading() ? next.headingStart() : next.start());
+
+                List<String> stable = chunks.subList(0, stableCount).stream()
+                        .map(TextChunker.Chunk::toString)
+                        .filter(prefetched::add)
+                        .toList();
+                if (!stable.isEmpty()) {
+                    embeddingProvider.prefetch(stable);
+                }
+            } catch (Exception e) {
+                log.debug("Embedding prefetch failed: {}", e.getMessage());
+            }
+        };
+    }
 
-            for (int i = 0; i < totalChunks; i++) {
-                String chunk = chunks.get(i);
-                float[] embedding = openAiClient.createEmbedding(chunk);
-                String embeddingStr = Arrays.toString(embedding);
+    private Long resolveBaseContract(Long baseContractId, String userEmail, Contract contract) {
+        if (baseContractId != null) {
+            return findByIdAndUserEmail(baseContractId, userEmail).getId();
+        }
+        return contractRepository.findFirstByUserEmailAndFilenameAndIndustryAndStatusOrderByCreatedAtDesc(
+                        userEmail, contract.getFilename(), contract.getIndustry(), Contract.AnalysisStatus.COMPLETED)
+                .map(Contract::getId)
+                .orElse(null);
+    }
 
-                progressEmitter.send(contractId, "ANALYZING",
-                        isEn ? "Comparing regulations... (" + (i + 1) + "/" + totalChunks + ")"
-                              : "규제 비교 중... (" + (i + 1) + "/" + totalChunks + ")",
-                        i + 1, totalChunks);
+    /**
+     * Runs the analysis pipeline for a contract. Called by {@link AnalysisJobWorker};
+     * failures propagate so the job can be retried.
+     */
+    public void analyze(Long contractId) throws Exception {
+        Contract contract = contractRepository.findById(contractId)
+                .orElseThrow(() -> new IllegalArgumentException("Contract not found: " + contractId));
+
+        String lang = contract.getLanguage() != null ? contract.getLanguage() : "ko";
+        boolean isEn = "en".equals(lang);
+        // Taken before evaluating, so results are never recorded under a corpus they were not computed with
+        String corpusVersion = regulationCorpus.version();
+
+        Timer.Sample chunking = Timer.start();
+        String content = findContent(contractId);
+        List<TextChunker.Chunk> chunkSpans = textChunker.chunk(content);
+        List<String> chunks = chunkSpans.stream().map(TextChunker.Chunk::toString).toList();
+        chunking.stop(stageTimers.get(AnalysisStageTimers.Stage.CHUNK));
+        int totalChunks = chunks.size();
+
+        // Resolve industry → category list
+        String industry = contract.getIndustry() != null ? contract.getIndustry() : "GENERAL";
+        List<String> categories = INDUSTRY_CATEGORIES.get(industry);
+
+        progressEmitter.send(contractId, "CHUNKING",
+                isEn ? "Analyzing text..." : "텍스트 분석 중...", 0, totalChunks);
+
+        // Unchanged clauses of the previous revision are carried over instead of being re-evaluated
+        if (incrementalAnalysis && contract.getBaseContractId() != null
+                && isComparableBase(contract, contract.getBaseContractId(), corpusVersion)) {
+            int seeded = checkpointStore.seedFromPrevious(contract.getBaseContractId(), contractId, chunks);
+            if (seeded > 0) {
+                log.info("Contract {}: reusing {}/{} unchanged chunks from contract {}",
+                        contractId, seeded, totalChunks, contract.getBaseContractId());
+            }
+        }
 
-                List<Regulation> matchedRegs;
-                if (categories != null) {
-                    matchedRegs = regulationRepository.findSimilarByCategories(
-                            embeddingStr, similarityThreshold, categories
-                    );
-                } else {
-                    matchedRegs = regulationRepository.findSimilar(
-                            embeddingStr, similarityThreshold
-                    );
-                }
+        // Resume from chunks completed by an earlier attempt
+        Map<Integer, ChunkAnalysisEngine.ChunkResult> checkpointed = checkpointStore.loadCompleted(contractId, chunks);
+        if (!checkpointed.isEmpty()) {
+            log.info("Resuming analysis of contract {}: {}/{} chunks already completed",
+                    contractId, checkpointed.size(), totalChunks);
+        }
 
-                if (!matchedRegs.isEmpty()) {
-                    List<String> regNames = matchedRegs.stream()
-                            .map(r -> r.getName() + ": " + r.getDescription())
-                            .toList();
-
-                    progressEmitter.send(contractId, "EVALUATING",
-                            isEn ? "Evaluating risk... (" + (i + 1) + "/" + totalChunks + ")"
-                                  : "위험도 평가 중... (" + (i + 1) + "/" + totalChunks + ")",
-                            i + 1, totalChunks);
-
-                    OpenAiClient.RiskAnalysis analysis = openAiClient.analyzeRisk(chunk, regNames, lang);
-
-                    if (!"NONE".equals(analysis.level())) {
-                        Risk risk = new Risk();
-                        risk.setContract(contract);
-                        risk.setClause(analysis.clause());
-                        risk.setLevel(Risk.RiskLevel.valueOf(analysis.level()));
-                        risk.setReason(analysis.reason());
-                        risk.setSuggestion(analysis.suggestion());
-                        riskRepository.save(risk);
-
-                        riskCount++;
-                        if ("HIGH".equals(analysis.level())) highCount++;
-                        allMatchedRegulations.addAll(matchedRegs);
+        List<ChunkAnalysisEngine.ChunkResult> results = analysisEngine.analyze(
+                chunks, categories, similarityThreshold, lang, checkpointed,
+                (completed, total, result) -> {
+                    checkpointStore.save(contractId, result);
+                    if (result.analysis() != null) {
+                        progressEmitter.send(contractId, "EVALUATING",
+                                isEn ? "Evaluating risk... (" + completed + "/" + total + ")"
+                                      : "위험도 평가 중... (" + completed + "/" + total + ")",
+                                completed, total);
+                    } else {
+                        progressEmitter.send(contractId, "ANALYZING",
+                                isEn ? "Comparing regulations... (" + completed + "/" + total + ")"
+                                      : "규제 비교 중... (" + completed + "/" + total + ")",
+                                completed, total);
                     }
-                }
+                });
+
+        // Track matched regulations for alert creation
+        Set<Regulation> allMatchedRegulations = new LinkedHashSet<>();
+        List<Risk> risks = new ArrayList<>();
+        int highCount = 0;
+
+        for (ChunkAnalysisEngine.ChunkResult result : results) {
+            OpenAiClient.RiskAnalysis analysis = result.analysis();
+            if (analysis != null && !"NONE".equals(analysis.level())) {
+                Risk risk = new Risk();
+                risk.setContract(contract);
+                risk.setClause(analysis.clause());
+                risk.setLevel(Risk.RiskLevel.valueOf(analysis.level()));
+                risk.setReason(analysis.reason());
+                risk.setSuggestion(analysis.suggestion());
+                TextChunker.Chunk chunk = chunkSpans.get(result.index());
+                locateClause(risk, content, chunk.start(), chunk.end(), analysis.clause());
+                risks.add(risk);
+
+                if ("HIGH".equals(analysis.level())) highCount++;
+                allMatchedRegulations.addAll(result.matchedRegulations());
             }
+        }
+        int riskCount = risks.size();
 
+        // Risks and the COMPLETED status are written atomically; a retried job replaces any earlier attempt
+        Timer.Sample persisting = Timer.start();
+        transactionTemplate.executeWithoutResult(status -> {
+            riskRepository.deleteByContractId(contractId);
+            riskRepository.saveAll(risks);
             contract.setStatus(Contract.AnalysisStatus.COMPLETED);
+            contract.setCorpusVersion(corpusVersion);
+            if (contract.getTextHash() == null) {
+                contract.setTextHash(ContractFingerprints.textHash(content));
+            }
             contractRepository.save(contract);
+        });
 
-            // Create alerts for detected risks
-            createAnalysisAlerts(contract, allMatchedRegulations, riskCount, highCount, lang);
+        // Create alerts for detected risks
+        createAnalysisAlerts(contract, allMatchedRegulations, riskCount, highCount, lang);
+        persisting.stop(stageTimers.get(AnalysisStageTimers.Stage.PERSIST));
 
-            progressEmitter.send(contractId, "COMPLETED",
-                    isEn ? "Analysis complete" : "분석 완료", totalChunks, totalChunks);
-            progressEmitter.complete(contractId);
+        progressEmitter.send(contractId, "COMPLETED",
+                isEn ? "Analysis complete" : "분석 완료", totalChunks, totalChunks);
+    }
 
-        } catch (Exception e) {
-            log.error("Analysis failed for contract {}", contractId, e);
-            contractRepository.findById(contractId).ifPresent(c -> {
-                c.setStatus(Contract.AnalysisStatus.FAILED);
-                contractRepository.save(c);
-            });
-            progressEmitter.send(contractId, "FAILED", "Analysis failed: " + e.getMessage(), 0, 0);
-            progressEmitter.complete(contractId);
+    /**
+     * The verdicts of a previous revision only carry over when it was evaluated in the same industry and
+     * language, and under the same corpus version. The similarity threshold and the embedding and chat models
+     * are hashed into {@link RegulationCorpus#version()} with the regulations, so comparing the version covers them.
+     */
+    private boolean isComparableBase(Contract contract, Long baseContractId, String corpusVersion) {
+        Contract base = contractRepository.findById(baseContractId).orElse(null);
+        if (base == null) return false;
+        boolean comparable = Objects.equals(base.getIndustry(), contract.getIndustry())
+                && Objects.equals(base.getLanguage(), contract.getLanguage())
+                && Objects.equals(base.getCorpusVersion(), corpusVersion);
+        if (!comparable) {
+            log.info("Contract {}: not reusing contract {}, it was analyzed with a different industry, language or corpus",
+                    contract.getId(), baseContractId);
+        }
+        return comparable;
+    }
+
+    /**
+     * Sets the offsets of the quoted clause in the contract text, if it can be found between from and to
+     * (its chunk). The model may quote with different line breaks or spacing, so whitespace runs match any
+     * whitespace.
+     */
+    private static void locateClause(Risk risk, String content, int from, int to, String clause) {
+        if (clause == null || clause.isBlank()) return;
+        String quote = clause.strip();
+        int at = content.indexOf(quote, from);
+        if (at >= 0 && at + quote.length() <= to) {
+            risk.setClauseStart(at);
+            risk.setClauseEnd(at + quote.length());
+            return;
+        }
+        for (int start = from; start < to; start++) {
+            int end = matchIgnoringWhitespace(content, start, to, quote);
+            if (end >= 0) {
+                risk.setClauseStart(start);
+                risk.setClauseEnd(end);
+                return;
+            }
         }
     }
 
+    /**
+     * @return the end of the match of quote at start, treating each whitespace run as equal to any other, or -1
+     */
+    private static int matchIgnoringWhitespace(String content, int start, int limit, String quote) {
+        int i = start;
+        int j = 0;
+        while (j < quote.length()) {
+            if (i >= limit) return -1;
+            char q = quote.charAt(j);
+            if (Character.isWhitespace(q)) {
+                if (!Character.isWhitespace(content.charAt(i))) return -1;
+                while (j < quote.length() && Character.isWhitespace(quote.charAt(j))) j++;
+                while (i < limit && Character.isWhitespace(content.charAt(i))) i++;
+            } else if (content.charAt(i++) != q) {
+                return -1;
+            } else {
+                j++;
+            }
+        }
+        return i;
+    }
+
+    public void handleAnalysisFailure(Long contractId, Exception e, boolean retrying) {
+        if (retrying) {
+            progressEmitter.send(contractId, "RETRYING", "Analysis failed, retrying: " + e.getMessage(), 0, 0);
+            return;
+        }
+        contractRepository.findById(contractId).ifPresent(c -> {
+            c.setStatus(Contract.AnalysisStatus.FAILED);
+            contractRepository.save(c);
+        });
+        progressEmitter.send(contractId, "FAILED", "Analysis failed: " + e.getMessage(), 0, 0);
+    }
+
     private void createAnalysisAlerts(Contract contract, Set<Regulation> matchedRegulations, int riskCount, int highCount, String language) {
         try {
             if (riskCount == 0) return;
@@ -224,8 +476,13 @@ public class ContractService {
         }
     }
 
-    public List<Contract> findByUserEmail(String userEmail) {
-        return contractRepository.findByUserEmailOrderByCreatedAtDesc(userEmail);
+    public List<ContractSummary> findByUserEmail(String userEmail) {
+        return contractRepository.findSummariesByUserEmail(userEmail, Limit.unlimited());
+    }
+
+    public String findContent(Long contractId) {
+        return contentRepository.findTextByContractId(contractId)
+                .orElseThrow(() -> new IllegalArgumentException("Contract content not found: " + contractId));
     }
 
     public Contract findByIdAndUserEmail(Long id, String userEmail) {
@@ -239,18 +496,26 @@ public class ContractService {
         if (contract.getStatus() == Contract.AnalysisStatus.ANALYZING) {
             throw new IllegalStateException("이미 분석 중입니다.");
         }
+        // A failed analysis resumes from its checkpoints; a completed one is evaluated from scratch
+        if (contract.getStatus() != Contract.AnalysisStatus.FAILED) {
+            checkpointStore.clear(contract.getId());
+        }
         riskRepository.deleteByContractId(contract.getId());
         alertRepository.deleteByContractId(contract.getId());
         contract.setStatus(Contract.AnalysisStatus.ANALYZING);
         contractRepository.save(contract);
+        analysisJobQueue.enqueue(contract.getId(), AnalysisJobQueue.PRIORITY_REANALYSIS);
         return contract;
     }
 
     @Transactional
     public void delete(Long id, String userEmail) {
         Contract contract = findByIdAndUserEmail(id, userEmail);
+        analysisJobRepository.deleteByContractId(contract.getId());
+        checkpointStore.clear(contract.getId());
         alertRepository.deleteByContractId(contract.getId());
         riskRepository.deleteByContractId(contract.getId());
+        contentRepository.deleteByContractId(contract.getId());
         contractRepository.delete(contract);
         contractRepository.flush();
         resetSequences();
@@ -260,8 +525,11 @@ public class ContractService {
     public void deleteAll(String userEmail) {
         List<Contract> contracts = contractRepository.findByUserEmailOrderByCreatedAtDesc(userEmail);
         for (Contract contract : contracts) {
+            analysisJobRepository.deleteByContractId(contract.getId());
+            checkpointStore.clear(contract.getId());
             alertRepository.deleteByContractId(contract.getId());
             riskRepository.deleteByContractId(contract.getId());
+            contentRepository.deleteByContractId(contract.getId());
             contractRepository.delete(contract);
         }
         contractRepository.flush();
@@ -479,14 +747,4 @@ public class ContractService {
         }
         return lines;
     }
-
-    private String extractText(MultipartFile file) throws IOException {
-        String filename = file.getOriginalFilename();
-        if (filename != null && filename.toLowerCase().endsWith(".pdf")) {
-            try (PDDocument doc = Loader.loadPDF(file.getBytes())) {
-                return new PDFTextStripper().getText(doc);
-            }
-        }
-        return new String(file.getBytes());
-    }
 }
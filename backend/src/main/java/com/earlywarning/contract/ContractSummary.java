@@ -0,0 +1,8 @@
+package com.earlywarning.contract;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a contract shown in lists, selected without loading the entity.
+ */
+public record ContractSummary(Long id, String filename, Contract.AnalysisStatus status, LocalDateTime createdAt) {}
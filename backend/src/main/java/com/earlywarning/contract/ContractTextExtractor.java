@@ -0,0 +1,221 @@
+package com.earlywarning.contract;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Extracts the text of an uploaded contract.
+ *
+ * PDFs are not read into a byte array: the upload is moved to a temp file, parsed from it with a buffered
+ * random-access reader, and PDFBox keeps decoded streams in at most max-main-memory of heap before spilling
+ * to scratch files. Text is extracted a range of pages at a time, and the text so far is handed to a
+ * listener after each range, so work on the first pages can start while the rest is extracted.
+ * Large documents have their ranges extracted in parallel on a fork-join pool.
+ */
+@Slf4j
+@Component
+public class ContractTextExtractor {
+
+    @Value("${contract.extraction.pages-per-range:10}")
+    private int pagesPerRange;
+
+    // Per document handle; parallel extraction opens up to one handle per worker
+    @Value("${contract.extraction.max-main-memory:16MB}")
+    private DataSize maxMainMemory;
+
+    // Documents with fewer pages are extracted on the calling thread
+    @Value("${contract.extraction.parallel-threshold-pages:40}")
+    private int parallelThresholdPages;
+
+    @Value("${contract.extraction.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public String extract(MultipartFile file) throws IOException {
+        return extract(file, text -> {});
+    }
+
+    /**
+     * @param onRange called with the text extracted so far after each page range except the last;
+     *                the sequence is only valid during the call
+     */
+    public String extract(MultipartFile file, Consumer<CharSequence> onRange) throws IOException {
+        String filename = file.getOriginalFilename();
+        if (filename == null || !filename.toLowerCase().endsWith(".pdf")) {
+            return new String(file.getBytes());
+        }
+
+        Path temp = Files.createTempFile("contract-", ".pdf");
+        try {
+            file.transferTo(temp);
+            return extractPdf(temp, onRange);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private String extractPdf(Path path, Consumer<CharSequence> onRange) throws IOException {
+        try (DocumentHandles handles = new DocumentHandles(path, maxMainMemory.toBytes())) {
+            PDDocument doc = handles.take();
+            int pages = doc.getNumberOfPages();
+            int range = Math.max(1, pagesPerRange);
+            if (pages < parallelThresholdPages || pool.getParallelism() <= 1 || pages <= range) {
+                return extractSequentially(doc, pages, range, onRange);
+            }
+            handles.release(doc);
+            return extractInParallel(handles, pages, range, onRange);
+        }
+    }
+
+    private String extractSequentially(PDDocument doc, int pages, int range,
+                                       Consumer<CharSequence> onRange) throws IOException {
+        StringWriter text = new StringWriter();
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int start = 1; start <= pages; start += range) {
+            int end = Math.min(pages, start + range - 1);
+            stripper.setStartPage(start);
+            stripper.setEndPage(end);
+            stripper.writeText(doc, text);
+            if (end < pages) {
+                onRange.accept(text.getBuffer());
+            }
+        }
+        log.debug("Extracted {} chars from {} pages", text.getBuffer().length(), pages);
+        return text.toString();
+    }
+
+    /**
+     * Extracts the page ranges on the pool, each worker on its own document handle (a PDDocument must not be
+     * shared between threads), and appends them in page order as they complete.
+     */
+    private String extractInParallel(DocumentHandles handles, int pages, int range,
+                                     Consumer<CharSequence> onRange) throws IOException {
+        List<ForkJoinTask<String>> ranges = new ArrayList<>();
+        for (int start = 1; start <= pages; start += range) {
+            int first = start;
+            int last = Math.min(pages, start + range - 1);
+            ranges.add(pool.submit(() -> {
+                PDDocument doc = handles.take();
+                try {
+                    PDFTextStripper stripper = new PDFTextStripper();
+                    stripper.setStartPage(first);
+                    stripper.setEndPage(last);
+                    return stripper.getText(doc);
+                } finally {
+                    handles.release(doc);
+                }
+            }));
+        }
+
+        StringBuilder text = new StringBuilder();
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                text.append(ranges.get(i).get());
+                if (i + 1 < ranges.size()) {
+                    onRange.accept(text);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting text", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException && cause.getCause() instanceof IOException io) cause = io;
+            throw cause instanceof IOException io ? io : new IOException("Text extraction failed", cause);
+        } finally {
+            // The handles are closed afterwards, so wait until no range is still using one
+            ranges.forEach(r -> r.cancel(false));
+            ranges.forEach(ForkJoinTask::quietlyJoin);
+        }
+        log.debug("Extracted {} chars from {} pages in {} ranges on up to {} handles",
+                text.length(), pages, ranges.size(), handles.opened());
+        return text.toString();
+    }
+
+    /**
+     * Document handles on the same file, opened on demand and reused by the ranges of one extraction.
+     */
+    private static final class DocumentHandles implements Closeable {
+        private final Path path;
+        private final long maxMainMemory;
+        private final Queue<PDDocument> idle = new ConcurrentLinkedQueue<>();
+        private final Queue<PDDocument> all = new ConcurrentLinkedQueue<>();
+
+        DocumentHandles(Path path, long maxMainMemory) {
+            this.path = path;
+            this.maxMainMemory = maxMainMemory;
+        }
+
+        PDDocument take() throws IOException {
+            PDDocument doc = idle.poll();
+            if (doc != null) return doc;
+            RandomAccessReadBufferedFile source = new RandomAccessReadBufferedFile(path);
+            try {
+                doc = Loader.loadPDF(source, "", MemoryUsageSetting.setupMixed(maxMainMemory).streamCache);
+            } catch (IOException e) {
+                source.close();
+                throw e;
+            }
+            all.add(doc);
+            return doc;
+        }
+
+        void release(PDDocument doc) {
+            idle.add(doc);
+        }
+
+        int opened() {
+            return all.size();
+        }
+
+        // Closing a loaded document also closes its source file
+        @Override
+        public void close() {
+            all.forEach(doc -> {
+                try {
+                    doc.close();
+                } catch (IOException e) {
+                    log.debug("Could not close PDF document: {}", e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package com.earlywarning.dashboard;
 
-import com.earlywarning.contract.Contract;
 import com.earlywarning.contract.ContractRepository;
+import com.earlywarning.contract.ContractSummary;
 import com.earlywarning.risk.Risk;
 import com.earlywarning.risk.RiskRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -43,14 +44,13 @@ public class DashboardController {
             risksByLevel.put(level.name().toLowerCase(), count);
         }
 
-        List<Contract> recent = contractRepository.findByUserEmailOrderByCreatedAtDesc(email);
+        List<ContractSummary> recent = contractRepository.findSummariesByUserEmail(email, Limit.of(5));
         List<RecentContractDto> recentContracts = recent.stream()
-                .limit(5)
                 .map(c -> new RecentContractDto(
-                        c.getId(),
-                        c.getFilename(),
-                        c.getStatus().name(),
-                        c.getCreatedAt()
+                        c.id(),
+                        c.filename(),
+                        c.status().name(),
+                        c.createdAt()
                 ))
                 .toList();
 
@@ -0,0 +1,150 @@
+package com.earlywarning.embedding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed embedding cache.
+ * A bounded in-memory LRU tier sits in front of the embedding_cache table, so identical
+ * boilerplate clauses are embedded once per model, across contracts and restarts.
+ * Returned arrays are shared and must not be modified by callers.
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final EmbeddingCacheRepository repository;
+    private final int maxEntries;
+    private final Map<String, float[]> memory;
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public EmbeddingCache(EmbeddingCacheRepository repository,
+                          MeterRegistry meterRegistry,
+                          @Value("${embedding.cache.max-entries:2000}") int maxEntries) {
+        this.repository = repository;
+        this.maxEntries = maxEntries;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                if (size() > EmbeddingCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.memoryHits = Counter.builder("embedding.cache.requests")
+                .tag("result", "hit").tag("tier", "memory").register(meterRegistry);
+        this.databaseHits = Counter.builder("embedding.cache.requests")
+                .tag("result", "hit").tag("tier", "database").register(meterRegistry);
+        this.misses = Counter.builder("embedding.cache.requests")
+                .tag("result", "miss").tag("tier", "none").register(meterRegistry);
+        this.evictions = Counter.builder("embedding.cache.evictions").register(meterRegistry);
+        Gauge.builder("embedding.cache.size", this, EmbeddingCache::size).register(meterRegistry);
+        Gauge.builder("embedding.cache.hit.ratio", this, EmbeddingCache::hitRatio).register(meterRegistry);
+    }
+
+    public String key(String model, String text) {
+        String normalized = WHITESPACE.matcher(text).replaceAll(" ").trim();
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(model.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            return HexFormat.of().formatHex(md.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the cached embeddings for the given keys; keys without an entry are absent
+     * from the returned (mutable) map.
+     */
+    public Map<String, float[]> getAll(Collection<String> keys) {
+        Map<String, float[]> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        synchronized (memory) {
+            for (String key : keys) {
+                float[] embedding = memory.get(key);
+                if (embedding != null) {
+                    found.put(key, embedding);
+                    memoryHits.increment();
+                } else {
+                    missing.add(key);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        try {
+            List<EmbeddingCacheEntry> entries = repository.findAllById(missing);
+            synchronized (memory) {
+                for (EmbeddingCacheEntry entry : entries) {
+                    memory.put(entry.getCacheKey(), entry.getEmbedding());
+                    found.put(entry.getCacheKey(), entry.getEmbedding());
+                    missing.remove(entry.getCacheKey());
+                    databaseHits.increment();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Embedding cache lookup failed, falling back to API: {}", e.getMessage());
+        }
+        misses.increment(missing.size());
+        return found;
+    }
+
+    public void putAll(String model, Map<String, float[]> embeddings) {
+        if (embeddings.isEmpty()) return;
+        synchronized (memory) {
+            memory.putAll(embeddings);
+        }
+
+        List<EmbeddingCacheEntry> entries = embeddings.entrySet().stream()
+                .map(e -> new EmbeddingCacheEntry(e.getKey(), model, e.getValue()))
+                .toList();
+        try {
+            repository.saveAll(entries);
+        } catch (Exception e) {
+            // Another analysis may have stored some of the same keys concurrently
+            log.debug("Batch insert into embedding cache failed, retrying individually: {}", e.getMessage());
+            for (EmbeddingCacheEntry entry : entries) {
+                try {
+                    repository.save(entry);
+                } catch (Exception ignored) {
+                    // already cached
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    private double hitRatio() {
+        double hits = memoryHits.count() + databaseHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+}
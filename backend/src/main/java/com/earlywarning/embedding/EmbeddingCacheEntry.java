@@ -0,0 +1,49 @@
+package com.earlywarning.embedding;
+
+import com.earlywarning.common.VectorType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "embedding_cache")
+@Getter @Setter
+@NoArgsConstructor
+public class EmbeddingCacheEntry implements Persistable<String> {
+
+    // SHA-256 of model name + normalized text
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    private String model;
+
+    @Type(VectorType.class)
+    @Column(columnDefinition = "vector")
+    private float[] embedding;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public EmbeddingCacheEntry(String cacheKey, String model, float[] embedding) {
+        this.cacheKey = cacheKey;
+        this.model = model;
+        this.embedding = embedding;
+    }
+
+    @Override
+    public String getId() {
+        return cacheKey;
+    }
+
+    // Entries are insert-only; skip the SELECT that merge() would issue for an assigned id
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,6 @@
+package com.earlywarning.embedding;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, String> {
+}
@@ -0,0 +1,32 @@
+package com.earlywarning.embedding;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Turns text into embedding vectors for regulation matching.
+ * Selected with embedding.provider; contract chunks and regulations must be embedded by the same
+ * provider, so regulation embeddings are stored per {@link #id()}.
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * Stable identifier of the model, stored with every regulation embedding and used as the
+     * {@link EmbeddingCache} namespace.
+     */
+    String id();
+
+    int dimension();
+
+    /**
+     * @return one embedding per text, in input order
+     */
+    List<float[]> embed(List<String> texts) throws IOException;
+
+    /**
+     * Starts embedding texts that are likely to be passed to {@link #embed} soon, without waiting for the
+     * result. Only useful for providers with a cache in front of a slow model; the default does nothing.
+     */
+    default void prefetch(List<String> texts) {
+    }
+}
@@ -0,0 +1,239 @@
+package com.earlywarning.embedding;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process sentence embeddings with ONNX Runtime on CPU, e.g. an ONNX export of
+ * paraphrase-multilingual-MiniLM-L12-v2 or multilingual-e5-small (Korean and English).
+ *
+ * Texts are tokenized with the model's tokenizer.json, sorted by length so each batch pads to a
+ * similar length, and the batches run in parallel on a fixed pool of platform threads (inference is
+ * CPU-bound native code). Token embeddings are mean-pooled over the attention mask and L2-normalized;
+ * models that already output a pooled sentence embedding are only normalized.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "embedding.provider", havingValue = "onnx")
+public class OnnxEmbeddingProvider implements EmbeddingProvider {
+
+    @Value("${embedding.onnx.model-path}")
+    private Path modelPath;
+
+    @Value("${embedding.onnx.tokenizer-path}")
+    private Path tokenizerPath;
+
+    // Defaults to the name of the directory holding the model
+    @Value("${embedding.onnx.model-name:}")
+    private String modelName;
+
+    // Prepended to every text, e.g. "passage: " for the e5 family
+    @Value("${embedding.onnx.text-prefix:}")
+    private String textPrefix;
+
+    @Value("${embedding.onnx.max-length:256}")
+    private int maxLength;
+
+    @Value("${embedding.onnx.batch-size:32}")
+    private int batchSize;
+
+    @Value("${embedding.onnx.parallelism:0}")
+    private int parallelism;
+
+    @Value("${embedding.onnx.intra-op-threads:2}")
+    private int intraOpThreads;
+
+    private OrtEnvironment environment;
+    private OrtSession session;
+    private Set<String> inputNames;
+    private HuggingFaceTokenizer tokenizer;
+    private ExecutorService executor;
+    private int dimension;
+
+    @PostConstruct
+    void init() throws IOException, OrtException {
+        if (!Files.isReadable(modelPath) || !Files.isReadable(tokenizerPath)) {
+            throw new IllegalStateException("embedding.provider=onnx requires readable embedding.onnx.model-path ("
+                    + modelPath + ") and embedding.onnx.tokenizer-path (" + tokenizerPath + ")");
+        }
+        if (modelName.isBlank()) {
+            Path dir = modelPath.toAbsolutePath().getParent();
+            modelName = dir != null && dir.getFileName() != null ? dir.getFileName().toString() : "model";
+        }
+        if (parallelism <= 0) {
+            parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, intraOpThreads));
+        }
+
+        environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            options.setIntraOpNumThreads(intraOpThreads);
+            session = environment.createSession(modelPath.toString(), options);
+        }
+        inputNames = session.getInputNames();
+        tokenizer = HuggingFaceTokenizer.builder()
+                .optTokenizerPath(tokenizerPath)
+                .optMaxLength(maxLength)
+                .optTruncation(true)
+                .optPadding(true)
+                .build();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "onnx-embedding-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Also warms up the session before the first request
+        dimension = embedBatch(List.of("dimension probe")).get(0).length;
+        log.info("ONNX embedding model {} loaded: {} dimensions, {} inputs, {} x {} threads",
+                modelName, dimension, inputNames, parallelism, intraOpThreads);
+    }
+
+    @PreDestroy
+    void shutdown() throws OrtException {
+        executor.shutdownNow();
+        tokenizer.close();
+        session.close();
+    }
+
+    @Override
+    public String id() {
+        return "onnx:" + modelName;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) throws IOException {
+        if (texts.isEmpty()) return List.of();
+
+        Integer[] order = new Integer[texts.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> texts.get(i).length()));
+
+        List<Future<List<float[]>>> batches = new ArrayList<>();
+        for (int start = 0; start < order.length; start += batchSize) {
+            List<String> batch = new ArrayList<>(batchSize);
+            for (int i = start; i < Math.min(start + batchSize, order.length); i++) {
+                batch.add(texts.get(order[i]));
+            }
+            batches.add(executor.submit(() -> embedBatch(batch)));
+        }
+
+        float[][] embeddings = new float[texts.size()][];
+        int position = 0;
+        try {
+            for (Future<List<float[]>> batch : batches) {
+                for (float[] embedding : batch.get()) {
+                    embeddings[order[position++]] = embedding;
+                }
+            }
+        } catch (InterruptedException e) {
+            batches.forEach(b -> b.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while embedding", e);
+        } catch (ExecutionException e) {
+            batches.forEach(b -> b.cancel(true));
+            throw new IOException("ONNX embedding failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return Arrays.asList(embeddings);
+    }
+
+    private List<float[]> embedBatch(List<String> texts) throws OrtException {
+        List<String> inputs = textPrefix.isEmpty() ? texts : texts.stream().map(t -> textPrefix + t).toList();
+        Encoding[] encodings = tokenizer.batchEncode(inputs);
+        int rows = encodings.length;
+        long[][] ids = new long[rows][];
+        long[][] mask = new long[rows][];
+        long[][] types = new long[rows][];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = encodings[i].getIds();
+            mask[i] = encodings[i].getAttentionMask();
+            types[i] = encodings[i].getTypeIds();
+        }
+
+        try (OnnxTensor idsTensor = OnnxTensor.createTensor(environment, ids);
+             OnnxTensor maskTensor = OnnxTensor.createTensor(environment, mask);
+             OnnxTensor typesTensor = OnnxTensor.createTensor(environment, types)) {
+            Map<String, OnnxTensor> feed = new HashMap<>();
+            feed.put("input_ids", idsTensor);
+            if (inputNames.contains("attention_mask")) feed.put("attention_mask", maskTensor);
+            if (inputNames.contains("token_type_ids")) feed.put("token_type_ids", typesTensor);
+
+            try (OrtSession.Result result = session.run(feed)) {
+                OnnxTensor output = (OnnxTensor) result.get(0);
+                long[] shape = output.getInfo().getShape();
+                FloatBuffer values = output.getFloatBuffer();
+                return shape.length == 2 ? rows(values, rows, (int) shape[1]) : meanPool(values, mask, (int) shape[2]);
+            }
+        }
+    }
+
+    private static List<float[]> rows(FloatBuffer values, int rows, int dimension) {
+        List<float[]> embeddings = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            float[] embedding = new float[dimension];
+            values.get(i * dimension, embedding);
+            embeddings.add(normalize(embedding));
+        }
+        return embeddings;
+    }
+
+    /**
+     * Averages the [rows, tokens, dimension] token embeddings over the non-padding tokens.
+     */
+    private static List<float[]> meanPool(FloatBuffer values, long[][] mask, int dimension) {
+        List<float[]> embeddings = new ArrayList<>(mask.length);
+        for (int row = 0; row < mask.length; row++) {
+            int tokens = mask[row].length;
+            float[] embedding = new float[dimension];
+            int counted = 0;
+            for (int t = 0; t < tokens; t++) {
+                if (mask[row][t] == 0) continue;
+                int base = (row * tokens + t) * dimension;
+                for (int d = 0; d < dimension; d++) embedding[d] += values.get(base + d);
+                counted++;
+            }
+            if (counted > 0) {
+                for (int d = 0; d < dimension; d++) embedding[d] /= counted;
+            }
+            embeddings.add(normalize(embedding));
+        }
+        return embeddings;
+    }
+
+    private static float[] normalize(float[] v) {
+        double sum = 0;
+        for (float x : v) sum += (double) x * x;
+        if (sum == 0) return v;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < v.length; i++) v[i] *= inv;
+        return v;
+    }
+}
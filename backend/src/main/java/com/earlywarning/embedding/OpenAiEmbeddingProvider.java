@@ -0,0 +1,51 @@
+package com.earlywarning.embedding;
+
+import com.earlywarning.common.OpenAiClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Embeddings from the OpenAI /v1/embeddings endpoint, cached by {@link OpenAiClient}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "embedding.provider", havingValue = "openai", matchIfMissing = true)
+public class OpenAiEmbeddingProvider implements EmbeddingProvider {
+
+    private final OpenAiClient openAiClient;
+
+    @Value("${openai.embedding-dimension:1536}")
+    private int dimension;
+
+    // The bare model name, so cache keys and stored regulation embeddings from before providers existed stay valid
+    @Override
+    public String id() {
+        return openAiClient.getEmbeddingModel();
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) throws IOException {
+        return openAiClient.createEmbeddings(texts);
+    }
+
+    // Fills the embedding cache
+    @Override
+    public void prefetch(List<String> texts) {
+        openAiClient.createEmbeddingsAsync(texts).exceptionally(e -> {
+            log.debug("Embedding prefetch of {} texts failed: {}", texts.size(), e.getMessage());
+            return null;
+        });
+    }
+}
@@ -1,14 +1,15 @@
 package com.earlywarning.regulation;
 
-import com.earlywarning.common.VectorType;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.hibernate.annotations.Type;
 
 import java.time.LocalDateTime;
 
+/**
+ * Embeddings live in {@link RegulationEmbedding}, one per embedding provider.
+ */
 @Entity
 @Table(name = "regulation")
 @Getter @Setter
@@ -24,10 +25,6 @@ public class Regulation {
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    @Type(VectorType.class)
-    @Column(columnDefinition = "vector(1536)")
-    private float[] embedding;
-
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
@@ -0,0 +1,45 @@
+package com.earlywarning.regulation;
+
+import com.earlywarning.common.OpenAiClient;
+import com.earlywarning.embedding.EmbeddingProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Version of everything an analysis result depends on besides the contract text: the regulations and
+ * their content hashes, the embedding model and similarity threshold that match clauses to them, and the
+ * chat model that evaluates the matches. Results recorded under one version are only reused under it.
+ */
+@Component
+@RequiredArgsConstructor
+public class RegulationCorpus {
+
+    private final RegulationRepository regulationRepository;
+    private final EmbeddingProvider embeddingProvider;
+    private final OpenAiClient openAiClient;
+
+    @Value("${risk.similarity-threshold}")
+    private double similarityThreshold;
+
+    public String version() {
+        StringBuilder sb = new StringBuilder();
+        for (Object[] row : regulationRepository.findIdsAndContentHashes()) {
+            sb.append(row[0]).append(':').append(row[1]).append(',');
+        }
+        sb.append('|').append(embeddingProvider.id())
+                .append('|').append(similarityThreshold)
+                .append('|').append(openAiClient.getChatModel());
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.earlywarning.regulation;
+
+import com.earlywarning.common.VectorType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDateTime;
+
+/**
+ * Embedding of one regulation by one {@link com.earlywarning.embedding.EmbeddingProvider}. Providers differ in
+ * dimension, so the column is an untyped vector and each provider gets its own partial index, see
+ * {@link VectorIndexManager}.
+ */
+@Entity
+@Table(name = "regulation_embedding", uniqueConstraints = {
+        @UniqueConstraint(name = "regulation_embedding_regulation_provider_uk", columnNames = {"regulation_id", "provider"})
+})
+@Getter @Setter
+@NoArgsConstructor
+public class RegulationEmbedding {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "regulation_id", nullable = false)
+    private Long regulationId;
+
+    // EmbeddingProvider.id()
+    @Column(nullable = false, length = 100)
+    private String provider;
+
+    @Column(nullable = false)
+    private int dimension;
+
+    @Type(VectorType.class)
+    @Column(columnDefinition = "vector", nullable = false)
+    private float[] embedding;
+
+    // Regulation.contentHash the embedding was computed from
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,15 @@
+package com.earlywarning.regulation;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface RegulationEmbeddingRepository extends JpaRepository<RegulationEmbedding, Long> {
+
+    List<RegulationEmbedding> findByProvider(String provider);
+
+    List<RegulationEmbedding> findByProvider(String provider, Pageable pageable);
+
+    long countByProvider(String provider);
+}
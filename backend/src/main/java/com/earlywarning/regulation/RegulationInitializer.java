@@ -2,20 +2,26 @@ package com.earlywarning.regulation;
 
 import com.earlywarning.alert.AlertService;
 import com.earlywarning.common.OpenAiClient;
+import com.earlywarning.embedding.EmbeddingProvider;
+import com.earlywarning.risk.RiskVerdictCache;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,15 +30,30 @@ import java.util.stream.Collectors;
 public class RegulationInitializer implements CommandLineRunner {
 
     private final RegulationRepository regulationRepository;
+    private final RegulationEmbeddingRepository embeddingRepository;
+    private final EmbeddingProvider embeddingProvider;
     private final OpenAiClient openAiClient;
+    private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
     private final AlertService alertService;
+    private final RiskVerdictCache riskVerdictCache;
+    private final RegulationVectorIndex vectorIndex;
+    private final VectorIndexManager vectorIndexManager;
 
     @Override
     public void run(String... args) {
+        try {
+            migrateLegacyEmbeddings();
+        } catch (Exception e) {
+            log.warn("Could not migrate regulation.embedding to regulation_embedding: {}", e.getMessage());
+        }
+
         try {
             Map<String, Regulation> existingByName = regulationRepository.findAll().stream()
                     .collect(Collectors.toMap(Regulation::getName, r -> r, (a, b) -> a));
+            Map<Long, RegulationEmbedding> embeddingsByRegulation = embeddingRepository
+                    .findByProvider(embeddingProvider.id()).stream()
+                    .collect(Collectors.toMap(RegulationEmbedding::getRegulationId, Function.identity(), (a, b) -> a));
 
             log.info("Existing regulations: {} records", existingByName.size());
             log.info("Loading regulations from JSON...");
@@ -40,13 +61,20 @@ public class RegulationInitializer implements CommandLineRunner {
 
             int loaded = 0;
             int updated = 0;
+            int embedded = 0;
             try (InputStream is = resource.getInputStream()) {
                 List<RegulationDto> regulations = objectMapper.readValue(
                         is, new TypeReference<List<RegulationDto>>() {}
                 );
 
+                // Regulations whose embedding must be (re)computed, embedded together in batches below
+                List<Pending> pending = new ArrayList<>();
+                List<String> pendingTexts = new ArrayList<>();
+
                 for (RegulationDto dto : regulations) {
                     String contentHash = computeHash(dto.name() + dto.description() + String.join(",", dto.riskKeywords()));
+                    String textForEmbedding = dto.name() + ": " + dto.description() +
+                            " Risk keywords: " + String.join(", ", dto.riskKeywords());
 
                     Regulation existing = existingByName.get(dto.name());
                     if (existing != null) {
@@ -56,7 +84,15 @@ public class RegulationInitializer implements CommandLineRunner {
                         // Check if content has changed via hash
                         if (contentHash.equals(existing.getContentHash())) {
                             regulationRepository.save(existing);
-                            log.debug("Skipping unchanged regulation: {}", dto.name());
+                            RegulationEmbedding stored = embeddingsByRegulation.get(existing.getId());
+                            if (stored != null && contentHash.equals(stored.getContentHash())
+                                    && stored.getDimension() == embeddingProvider.dimension()) {
+                                log.debug("Skipping unchanged regulation: {}", dto.name());
+                                continue;
+                            }
+                            // Not embedded by the active provider yet, e.g. after switching embedding.provider
+                            pending.add(new Pending(existing, false));
+                            pendingTexts.add(textForEmbedding);
                             continue;
                         }
 
@@ -65,20 +101,8 @@ public class RegulationInitializer implements CommandLineRunner {
                         existing.setDescription(dto.description());
                         existing.setContentHash(contentHash);
                         existing.setUpdatedAt(LocalDateTime.now());
-
-                        try {
-                            String textForEmbedding = dto.name() + ": " + dto.description() +
-                                    " Risk keywords: " + String.join(", ", dto.riskKeywords());
-                            float[] embedding = openAiClient.createEmbedding(textForEmbedding);
-                            existing.setEmbedding(embedding);
-                            regulationRepository.save(existing);
-                            updated++;
-
-                            // Create alerts for affected contracts
-                            alertService.createAlertsForUpdatedRegulation(existing);
-                        } catch (Exception e) {
-                            log.error("Failed to update regulation: {}", dto.name(), e);
-                        }
+                        pending.add(new Pending(existing, true));
+                        pendingTexts.add(textForEmbedding);
                         continue;
                     }
 
@@ -88,25 +112,109 @@ public class RegulationInitializer implements CommandLineRunner {
                     regulation.setDescription(dto.description());
                     regulation.setContentHash(contentHash);
                     regulation.setCategory(dto.category());
+                    pending.add(new Pending(regulation, false));
+                    pendingTexts.add(textForEmbedding);
+                }
 
+                List<float[]> embeddings = pending.isEmpty() ? List.of() : embed(pendingTexts);
+
+                for (int i = 0; i < embeddings.size(); i++) {
+                    // Left for the next start, like regulations embedded by another provider
+                    if (embeddings.get(i) == null) continue;
+                    Regulation regulation = pending.get(i).regulation();
+                    boolean isNew = regulation.getId() == null;
+                    boolean isUpdate = pending.get(i).contentChanged();
                     try {
-                        String textForEmbedding = dto.name() + ": " + dto.description() +
-                                " Risk keywords: " + String.join(", ", dto.riskKeywords());
-                        float[] embedding = openAiClient.createEmbedding(textForEmbedding);
-                        regulation.setEmbedding(embedding);
                         regulationRepository.save(regulation);
-                        loaded++;
-                        log.info("Loaded: {}", dto.name());
+                        saveEmbedding(regulation, embeddings.get(i), embeddingsByRegulation.get(regulation.getId()));
+                        if (isUpdate) {
+                            updated++;
+                            riskVerdictCache.evictByRegulation(regulation.getId());
+                            // Create alerts for affected contracts
+                            alertService.createAlertsForUpdatedRegulation(regulation);
+                        } else if (isNew) {
+                            loaded++;
+                            log.info("Loaded: {}", regulation.getName());
+                        } else {
+                            embedded++;
+                        }
                     } catch (Exception e) {
-                        log.error("Failed to load regulation: {}", dto.name(), e);
+                        log.error("Failed to {} regulation: {}", isUpdate ? "update" : "load", regulation.getName(), e);
                     }
                 }
-                log.info("Regulations initialization complete: {} new loaded, {} updated, {} total",
-                        loaded, updated, regulationRepository.count());
+                log.info("Regulations initialization complete: {} new loaded, {} updated, {} embedded with {}, {} total",
+                        loaded, updated, embedded, embeddingProvider.id(), regulationRepository.count());
             }
         } catch (Exception e) {
             log.warn("Could not initialize regulations. Vector extension may not be available: {}", e.getMessage());
         }
+
+        try {
+            vectorIndexManager.ensureIndexes();
+        } catch (Exception e) {
+            log.warn("Could not create pgvector index on regulation.embedding: {}", e.getMessage());
+        }
+
+        try {
+            vectorIndex.refresh();
+        } catch (Exception e) {
+            log.warn("Could not load regulation vector index, falling back to pgvector: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Embeddings in text order. A failed request is retried in halves down to single texts, so one
+     * text the provider rejects only leaves that text without an embedding (null).
+     */
+    private List<float[]> embed(List<String> texts) {
+        try {
+            return embeddingProvider.embed(texts);
+        } catch (Exception e) {
+            if (texts.size() == 1) {
+                log.error("Failed to create embedding for regulation text: {}", e.getMessage());
+                return Collections.singletonList(null);
+            }
+            log.warn("Failed to create embeddings for {} regulations, retrying in smaller batches: {}",
+                    texts.size(), e.getMessage());
+        }
+        int half = texts.size() / 2;
+        List<float[]> embeddings = new ArrayList<>(embed(texts.subList(0, half)));
+        embeddings.addAll(embed(texts.subList(half, texts.size())));
+        return embeddings;
+    }
+
+    private void saveEmbedding(Regulation regulation, float[] vector, RegulationEmbedding existing) {
+        RegulationEmbedding embedding = existing != null ? existing : new RegulationEmbedding();
+        embedding.setRegulationId(regulation.getId());
+        embedding.setProvider(embeddingProvider.id());
+        embedding.setDimension(vector.length);
+        embedding.setEmbedding(vector);
+        embedding.setContentHash(regulation.getContentHash());
+        embedding.setCreatedAt(LocalDateTime.now());
+        embeddingRepository.save(embedding);
+    }
+
+    /**
+     * Copies embeddings from the regulation.embedding column used before embedding providers into
+     * regulation_embedding, under the OpenAI model that produced them. The column itself is left in place.
+     */
+    private void migrateLegacyEmbeddings() {
+        Integer columns = jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM information_schema.columns
+                WHERE table_name = 'regulation' AND column_name = 'embedding'
+                """, Integer.class);
+        if (columns == null || columns == 0) return;
+
+        int migrated = jdbcTemplate.update("""
+                INSERT INTO regulation_embedding (regulation_id, provider, dimension, embedding, content_hash, created_at)
+                SELECT r.id, ?, vector_dims(r.embedding), r.embedding, r.content_hash, now()
+                FROM regulation r
+                WHERE r.embedding IS NOT NULL
+                ON CONFLICT (regulation_id, provider) DO NOTHING
+                """, openAiClient.getEmbeddingModel());
+        if (migrated > 0) {
+            log.info("Migrated {} regulation embeddings to regulation_embedding ({})", migrated, openAiClient.getEmbeddingModel());
+        }
     }
 
     private String computeHash(String content) {
@@ -119,5 +227,7 @@ public class RegulationInitializer implements CommandLineRunner {
         }
     }
 
+    private record Pending(Regulation regulation, boolean contentChanged) {}
+
     record RegulationDto(String name, String category, String description, List<String> riskKeywords) {}
 }
@@ -0,0 +1,41 @@
+package com.earlywarning.regulation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds the regulations most similar to a chunk embedding.
+ * Served from the in-memory {@link RegulationVectorIndex} when it is loaded, otherwise from pgvector.
+ */
+@Component
+@RequiredArgsConstructor
+public class RegulationMatcher {
+
+    private static final int TOP_K = 3;
+
+    private final RegulationVectorIndex vectorIndex;
+    private final RegulationRepository regulationRepository;
+
+    /**
+     * Matches every chunk embedding of a contract at once: locally when the index is loaded,
+     * otherwise with a single batched pgvector query.
+     *
+     * @param categories null to search all regulations
+     * @return one list per embedding, in input order
+     */
+    public List<List<Regulation>> findSimilarBatch(List<float[]> embeddings, double threshold, List<String> categories) {
+        List<List<Regulation>> results = new ArrayList<>(embeddings.size());
+        for (float[] embedding : embeddings) {
+            Optional<List<Regulation>> indexed = vectorIndex.findSimilar(embedding, threshold, categories, TOP_K);
+            if (indexed.isEmpty()) {
+                return regulationRepository.findSimilarBatch(embeddings, threshold, categories);
+            }
+            results.add(indexed.get());
+        }
+        return results;
+    }
+}
@@ -2,29 +2,11 @@ package com.earlywarning.regulation;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface RegulationRepository extends JpaRepository<Regulation, Long> {
+public interface RegulationRepository extends JpaRepository<Regulation, Long>, RegulationRepositoryCustom {
 
-    @Query(value = """
-        SELECT * FROM regulation
-        WHERE embedding <=> CAST(:embedding AS vector) < :threshold
-        ORDER BY embedding <=> CAST(:embedding AS vector)
-        LIMIT 3
-        """, nativeQuery = true)
-    List<Regulation> findSimilar(@Param("embedding") String embedding,
-                                  @Param("threshold") double threshold);
-
-    @Query(value = """
-        SELECT * FROM regulation
-        WHERE embedding <=> CAST(:embedding AS vector) < :threshold
-          AND category IN (:categories)
-        ORDER BY embedding <=> CAST(:embedding AS vector)
-        LIMIT 3
-        """, nativeQuery = true)
-    List<Regulation> findSimilarByCategories(@Param("embedding") String embedding,
-                                              @Param("threshold") double threshold,
-                                              @Param("categories") List<String> categories);
-}
\ No newline at end of file
+    @Query("SELECT r.id, r.contentHash FROM Regulation r ORDER BY r.id")
+    List<Object[]> findIdsAndContentHashes();
+}
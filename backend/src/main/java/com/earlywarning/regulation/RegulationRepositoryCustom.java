@@ -0,0 +1,27 @@
+package com.earlywarning.regulation;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface RegulationRepositoryCustom {
+
+    /**
+     * Top 3 regulations by pgvector cosine distance below the threshold, for many query vectors
+     * in one round trip.
+     *
+     * @param categories null to search all regulations
+     * @return one list per query embedding, in input order
+     */
+    @Transactional(readOnly = true)
+    List<List<Regulation>> findSimilarBatch(List<float[]> embeddings, double threshold, List<String> categories);
+
+    /**
+     * Ids of the nearest regulations without a threshold, used to compare the ANN index against
+     * an exact sequential scan.
+     *
+     * @param exact true to disable index scans for this query
+     */
+    @Transactional(readOnly = true)
+    List<Long> findNearestIds(float[] embedding, int limit, boolean exact);
+}
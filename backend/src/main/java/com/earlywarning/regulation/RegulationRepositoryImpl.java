@@ -0,0 +1,162 @@
+package com.earlywarning.regulation;
+
+import com.earlywarning.common.VectorType;
+import com.earlywarning.embedding.EmbeddingProvider;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.CustomType;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Native pgvector queries. The query vector is bound through {@link VectorType}, so it travels
+ * as a typed (binary when enabled) parameter instead of a "[...]" string cast to vector.
+ * Queries run in a transaction (see {@link RegulationRepositoryCustom}) so the ANN search
+ * parameters can be applied with SET LOCAL.
+ * Only the active provider's rows of regulation_embedding are searched. Its id and dimension are
+ * written into the SQL rather than bound, so the planner can use that provider's partial index
+ * on embedding::vector(dimension).
+ */
+class RegulationRepositoryImpl implements RegulationRepositoryCustom {
+
+    // Keeps each statement well below PostgreSQL's bind parameter limit and a few MB in size
+    private static final int MAX_BATCH_QUERIES = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${risk.vector-index.type:hnsw}")
+    private String indexType;
+
+    @Value("${risk.vector-index.hnsw.ef-search:40}")
+    private int efSearch;
+
+    @Value("${risk.vector-index.ivfflat.probes:10}")
+    private int probes;
+
+    private final EmbeddingProvider embeddingProvider;
+
+    private volatile CustomType<float[]> vectorType;
+
+    RegulationRepositoryImpl(EmbeddingProvider embeddingProvider) {
+        this.embeddingProvider = embeddingProvider;
+    }
+
+    @Override
+    public List<List<Regulation>> findSimilarBatch(List<float[]> embeddings, double threshold, List<String> categories) {
+        applySearchParameters();
+
+        List<List<Regulation>> results = new ArrayList<>(embeddings.size());
+        for (int start = 0; start < embeddings.size(); start += MAX_BATCH_QUERIES) {
+            int end = Math.min(start + MAX_BATCH_QUERIES, embeddings.size());
+            results.addAll(findSimilarBatchPart(embeddings.subList(start, end), threshold, categories));
+        }
+        return results;
+    }
+
+    /**
+     * One LATERAL top-3 search per query vector: the vectors are passed as a VALUES list of
+     * bound parameters, so every chunk of a contract is matched in a single statement.
+     */
+    @SuppressWarnings("unchecked")
+    private List<List<Regulation>> findSimilarBatchPart(List<float[]> embeddings, double threshold,
+                                                        List<String> categories) {
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < embeddings.size(); i++) {
+            values.add("(" + i + ", :e" + i + ")");
+        }
+
+        String sql = """
+            SELECT q.idx AS idx, {r.*}
+            FROM (VALUES %s) AS q(idx, embedding)
+            CROSS JOIN LATERAL (
+                SELECT reg.*, %2$s <=> q.embedding AS distance
+                FROM regulation_embedding e
+                JOIN regulation reg ON reg.id = e.regulation_id
+                WHERE %3$s AND %2$s <=> q.embedding < :threshold
+                %4$s
+                ORDER BY %2$s <=> q.embedding
+                LIMIT 3
+            ) r
+            ORDER BY q.idx, r.distance
+            """.formatted(values, vector("e"), providerFilter("e"),
+                categories != null ? "AND reg.category IN (:categories)" : "");
+
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addScalar("idx", StandardBasicTypes.INTEGER)
+                .addEntity("r", Regulation.class);
+        for (int i = 0; i < embeddings.size(); i++) {
+            query.setParameter("e" + i, embeddings.get(i), vectorType());
+        }
+        query.setParameter("threshold", threshold);
+        if (categories != null) {
+            query.setParameterList("categories", categories);
+        }
+
+        List<List<Regulation>> results = new ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            results.add(new ArrayList<>(3));
+        }
+        for (Object[] row : query.getResultList()) {
+            results.get((Integer) row[0]).add((Regulation) row[1]);
+        }
+        return results;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> findNearestIds(float[] embedding, int limit, boolean exact) {
+        applySearchParameters();
+        setLocal("enable_indexscan", exact ? "off" : "on");
+
+        NativeQuery<Number> query = entityManager.createNativeQuery("""
+                SELECT e.regulation_id FROM regulation_embedding e
+                WHERE %s
+                ORDER BY %s <=> :embedding
+                LIMIT :limit
+                """.formatted(providerFilter("e"), vector("e"))).unwrap(NativeQuery.class);
+        query.setParameter("embedding", embedding, vectorType());
+        query.setParameter("limit", limit);
+        return query.getResultList().stream().map(Number::longValue).toList();
+    }
+
+    private String vector(String alias) {
+        return "(%s.embedding::vector(%d))".formatted(alias, embeddingProvider.dimension());
+    }
+
+    private String providerFilter(String alias) {
+        return alias + ".provider = '" + embeddingProvider.id().replace("'", "''") + "'";
+    }
+
+    private void applySearchParameters() {
+        switch (indexType) {
+            case "hnsw" -> setLocal("hnsw.ef_search", String.valueOf(efSearch));
+            case "ivfflat" -> setLocal("ivfflat.probes", String.valueOf(probes));
+            default -> { }
+        }
+    }
+
+    private void setLocal(String name, String value) {
+        entityManager.createNativeQuery("SELECT set_config(:name, :value, true)")
+                .setParameter("name", name)
+                .setParameter("value", value)
+                .getSingleResult();
+    }
+
+    private CustomType<float[]> vectorType() {
+        CustomType<float[]> type = vectorType;
+        if (type == null) {
+            type = new CustomType<>(new VectorType(), entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class).getTypeConfiguration());
+            vectorType = type;
+        }
+        return type;
+    }
+}
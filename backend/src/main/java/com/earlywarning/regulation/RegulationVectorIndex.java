@@ -0,0 +1,182 @@
+package com.earlywarning.regulation;
+
+import com.earlywarning.embedding.EmbeddingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * In-memory cosine similarity index over the active provider's {@link RegulationEmbedding}s.
+ * Embeddings are L2-normalized into one flat row-major float matrix, so a query is a
+ * sequential dot-product scan with no DB round trip. Rows are also partitioned by category
+ * so industry-filtered searches only touch their own rows.
+ * The index is cold (and callers fall back to pgvector) until {@link #refresh()} succeeds,
+ * or when the corpus exceeds {@code risk.regulation-index.max-size}.
+ */
+@Slf4j
+@Component
+public class RegulationVectorIndex {
+
+    private final RegulationRepository regulationRepository;
+    private final RegulationEmbeddingRepository embeddingRepository;
+    private final EmbeddingProvider embeddingProvider;
+    private final int maxSize;
+
+    private volatile Snapshot snapshot;
+
+    public RegulationVectorIndex(RegulationRepository regulationRepository,
+                                 RegulationEmbeddingRepository embeddingRepository,
+                                 EmbeddingProvider embeddingProvider,
+                                 @Value("${risk.regulation-index.max-size:5000}") int maxSize) {
+        this.regulationRepository = regulationRepository;
+        this.embeddingRepository = embeddingRepository;
+        this.embeddingProvider = embeddingProvider;
+        this.maxSize = maxSize;
+    }
+
+    public synchronized void refresh() {
+        int dimension = embeddingProvider.dimension();
+        List<RegulationEmbedding> embeddings = embeddingRepository.findByProvider(embeddingProvider.id()).stream()
+                .filter(e -> e.getEmbedding() != null && e.getEmbedding().length == dimension)
+                .toList();
+        if (embeddings.isEmpty() || embeddings.size() > maxSize) {
+            snapshot = null;
+            log.info("Regulation vector index disabled ({} regulations, max {}), using pgvector",
+                    embeddings.size(), maxSize);
+            return;
+        }
+        Map<Long, Regulation> regulations = new HashMap<>();
+        for (Regulation r : regulationRepository.findAllById(embeddings.stream().map(RegulationEmbedding::getRegulationId).toList())) {
+            regulations.put(r.getId(), r);
+        }
+        snapshot = Snapshot.build(dimension, embeddings, regulations);
+        log.info("Regulation vector index loaded: {} regulations, {} dimensions ({})",
+                snapshot.regulations.length, dimension, embeddingProvider.id());
+    }
+
+    /**
+     * Top-k regulations whose cosine distance to the query is below the threshold,
+     * closest first. Same semantics as the pgvector queries in {@link RegulationRepository}.
+     *
+     * @param categories null to search all regulations
+     * @return empty if the index is cold or was built for a different dimension
+     */
+    public Optional<List<Regulation>> findSimilar(float[] embedding, double threshold, List<String> categories, int limit) {
+        Snapshot s = snapshot;
+        if (s == null || embedding.length != s.dimension) {
+            return Optional.empty();
+        }
+
+        float[] query = normalize(embedding);
+        TopK top = new TopK(limit);
+        if (categories == null) {
+            for (int row = 0; row < s.regulations.length; row++) {
+                top.offer(row, 1.0 - s.dot(row, query), threshold);
+            }
+        } else {
+            for (String category : new LinkedHashSet<>(categories)) {
+                for (int row : s.rowsByCategory.getOrDefault(category, new int[0])) {
+                    top.offer(row, 1.0 - s.dot(row, query), threshold);
+                }
+            }
+        }
+        return Optional.of(top.result(s.regulations));
+    }
+
+    private static float[] normalize(float[] v) {
+        double sum = 0;
+        for (float x : v) sum += (double) x * x;
+        float[] out = new float[v.length];
+        if (sum == 0) return out;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < v.length; i++) out[i] = v[i] * inv;
+        return out;
+    }
+
+    private static final class Snapshot {
+        final int dimension;
+        final float[] matrix;
+        final Regulation[] regulations;
+        final Map<String, int[]> rowsByCategory;
+
+        private Snapshot(int dimension, float[] matrix, Regulation[] regulations, Map<String, int[]> rowsByCategory) {
+            this.dimension = dimension;
+            this.matrix = matrix;
+            this.regulations = regulations;
+            this.rowsByCategory = rowsByCategory;
+        }
+
+        static Snapshot build(int dimension, List<RegulationEmbedding> embeddings, Map<Long, Regulation> regulations) {
+            List<RegulationEmbedding> present = embeddings.stream()
+                    .filter(e -> regulations.containsKey(e.getRegulationId()))
+                    .toList();
+
+            float[] matrix = new float[present.size() * dimension];
+            Regulation[] rows = new Regulation[present.size()];
+            Map<String, List<Integer>> byCategory = new HashMap<>();
+            for (int row = 0; row < rows.length; row++) {
+                RegulationEmbedding e = present.get(row);
+                Regulation r = regulations.get(e.getRegulationId());
+                rows[row] = r;
+                System.arraycopy(normalize(e.getEmbedding()), 0, matrix, row * dimension, dimension);
+                if (r.getCategory() != null) {
+                    byCategory.computeIfAbsent(r.getCategory(), c -> new ArrayList<>()).add(row);
+                }
+            }
+
+            Map<String, int[]> rowsByCategory = new HashMap<>();
+            byCategory.forEach((c, list) -> rowsByCategory.put(c, list.stream().mapToInt(Integer::intValue).toArray()));
+            return new Snapshot(dimension, matrix, rows, rowsByCategory);
+        }
+
+        // Four independent accumulators keep the loop free of a serial dependency chain
+        double dot(int row, float[] query) {
+            int base = row * dimension;
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (; i + 3 < dimension; i += 4) {
+                s0 += matrix[base + i] * query[i];
+                s1 += matrix[base + i + 1] * query[i + 1];
+                s2 += matrix[base + i + 2] * query[i + 2];
+                s3 += matrix[base + i + 3] * query[i + 3];
+            }
+            for (; i < dimension; i++) {
+                s0 += matrix[base + i] * query[i];
+            }
+            return (double) s0 + s1 + s2 + s3;
+        }
+    }
+
+    private static final class TopK {
+        private final int[] rows;
+        private final double[] distances;
+        private int size;
+
+        TopK(int k) {
+            rows = new int[k];
+            distances = new double[k];
+        }
+
+        void offer(int row, double distance, double threshold) {
+            if (distance >= threshold || rows.length == 0) return;
+            if (size == rows.length && distance >= distances[size - 1]) return;
+
+            int pos = size < rows.length ? size++ : size - 1;
+            while (pos > 0 && distances[pos - 1] > distance) {
+                rows[pos] = rows[pos - 1];
+                distances[pos] = distances[pos - 1];
+                pos--;
+            }
+            rows[pos] = row;
+            distances[pos] = distance;
+        }
+
+        List<Regulation> result(Regulation[] regulations) {
+            List<Regulation> out = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) out.add(regulations[rows[i]]);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.earlywarning.regulation;
+
+import com.earlywarning.embedding.EmbeddingProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates and maintains the approximate nearest neighbour index on regulation_embedding for the
+ * active embedding provider: a partial index over embedding::vector(dimension) restricted to that
+ * provider's rows, since pgvector can only index vectors of a fixed dimension.
+ *
+ * risk.vector-index.type selects hnsw (default), ivfflat or none. IVFFlat clusters are trained on
+ * the rows present at build time, so its index is rebuilt when the table has grown or shrunk far
+ * enough that the list count is off by more than 2x. Query-time ef_search / probes are applied by
+ * {@link RegulationRepositoryImpl}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VectorIndexManager {
+
+    private static final Pattern LISTS = Pattern.compile("lists\\s*=\\s*'?(\\d+)");
+    private static final Pattern NON_IDENTIFIER = Pattern.compile("[^a-z0-9]+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RegulationRepository regulationRepository;
+    private final RegulationEmbeddingRepository embeddingRepository;
+    private final EmbeddingProvider embeddingProvider;
+
+    @Value("${risk.vector-index.type:hnsw}")
+    private String indexType;
+
+    @Value("${risk.vector-index.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${risk.vector-index.hnsw.ef-construction:64}")
+    private int hnswEfConstruction;
+
+    @Value("${risk.vector-index.verify-recall:false}")
+    private boolean verifyRecall;
+
+    public void ensureIndexes() {
+        // CONCURRENTLY keeps regulation writable while a large index builds (requires autocommit)
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS regulation_category_idx ON regulation (category)");
+
+        String hnswIndex = indexName("hnsw");
+        String ivfflatIndex = indexName("ivfflat");
+        switch (indexType) {
+            case "hnsw" -> {
+                dropIndex(ivfflatIndex);
+                jdbcTemplate.execute("""
+                        CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON regulation_embedding
+                        USING hnsw (%s vector_cosine_ops) WITH (m = %d, ef_construction = %d)
+                        WHERE %s
+                        """.formatted(hnswIndex, vectorExpression(), hnswM, hnswEfConstruction, providerPredicate()));
+                log.info("HNSW index {} ready (m={}, ef_construction={})", hnswIndex, hnswM, hnswEfConstruction);
+            }
+            case "ivfflat" -> {
+                dropIndex(hnswIndex);
+                ensureIvfflatIndex(ivfflatIndex);
+            }
+            default -> {
+                dropIndex(hnswIndex);
+                dropIndex(ivfflatIndex);
+                log.info("Vector index disabled, similarity search will scan regulation_embedding");
+            }
+        }
+
+        if (verifyRecall) {
+            log.info("Vector index recall@10 against exact search: {}", String.format("%.3f", measureRecall(50, 10)));
+        }
+    }
+
+    /**
+     * Fraction of the exact top-k neighbours that the ANN index also returns, averaged over
+     * a sample of regulation embeddings used as queries.
+     */
+    public double measureRecall(int sampleSize, int k) {
+        List<RegulationEmbedding> sample = embeddingRepository.findByProvider(embeddingProvider.id(),
+                PageRequest.of(0, sampleSize));
+        int found = 0;
+        int expected = 0;
+        for (RegulationEmbedding embedding : sample) {
+            Set<Long> exact = new HashSet<>(regulationRepository.findNearestIds(embedding.getEmbedding(), k, true));
+            List<Long> approximate = regulationRepository.findNearestIds(embedding.getEmbedding(), k, false);
+            expected += exact.size();
+            found += (int) approximate.stream().filter(exact::contains).count();
+        }
+        return expected == 0 ? 1.0 : (double) found / expected;
+    }
+
+    private void ensureIvfflatIndex(String index) {
+        long rows = embeddingRepository.countByProvider(embeddingProvider.id());
+        if (rows == 0) {
+            // IVFFlat must be trained on data; build it once regulations are embedded
+            log.info("No regulation embeddings for {} yet, deferring IVFFlat index creation", embeddingProvider.id());
+            return;
+        }
+        int lists = idealLists(rows);
+
+        List<String> definitions = jdbcTemplate.queryForList(
+                "SELECT indexdef FROM pg_indexes WHERE indexname = ?", String.class, index);
+        if (!definitions.isEmpty()) {
+            Matcher m = LISTS.matcher(definitions.get(0));
+            int current = m.find() ? Integer.parseInt(m.group(1)) : lists;
+            if (current * 2 >= lists && lists * 2 >= current) {
+                log.info("IVFFlat index {} up to date (lists={}, rows={})", index, current, rows);
+                return;
+            }
+            log.info("Rebuilding IVFFlat index {}: lists {} -> {} for {} rows", index, current, lists, rows);
+            dropIndex(index);
+        }
+
+        jdbcTemplate.execute("""
+                CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON regulation_embedding
+                USING ivfflat (%s vector_cosine_ops) WITH (lists = %d)
+                WHERE %s
+                """.formatted(index, vectorExpression(), lists, providerPredicate()));
+        log.info("IVFFlat index {} ready (lists={}, rows={})", index, lists, rows);
+    }
+
+    // pgvector guidance: rows / 1000 up to 1M rows, sqrt(rows) beyond
+    private static int idealLists(long rows) {
+        long lists = rows <= 1_000_000 ? rows / 1000 : (long) Math.sqrt(rows);
+        return (int) Math.max(1, lists);
+    }
+
+    /**
+     * e.g. regulation_embedding_text_embedding_3_small_1536_hnsw, shortened to PostgreSQL's 63 character limit.
+     */
+    private String indexName(String type) {
+        String provider = NON_IDENTIFIER.matcher(embeddingProvider.id().toLowerCase()).replaceAll("_");
+        String suffix = "_" + embeddingProvider.dimension() + "_" + type;
+        String name = "regulation_embedding_" + provider;
+        return name.substring(0, Math.min(name.length(), 63 - suffix.length())) + suffix;
+    }
+
+    // Must match the expression RegulationRepositoryImpl orders by for the index to be used
+    private String vectorExpression() {
+        return "(embedding::vector(%d))".formatted(embeddingProvider.dimension());
+    }
+
+    private String providerPredicate() {
+        return "provider = '" + embeddingProvider.id().replace("'", "''") + "'";
+    }
+
+    private void dropIndex(String name) {
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+    }
+}
@@ -32,6 +32,11 @@ public class Risk {
     @Column(columnDefinition = "TEXT")
     private String suggestion;
 
+    // Char offsets of the clause in the contract text, null when the quoted clause was not found in it
+    private Integer clauseStart;
+
+    private Integer clauseEnd;
+
     public enum RiskLevel {
         HIGH, MEDIUM, LOW
     }
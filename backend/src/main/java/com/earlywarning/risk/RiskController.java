@@ -5,6 +5,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/risks")
 @RequiredArgsConstructor
@@ -24,13 +26,15 @@ public class RiskController {
         ));
     }
 
+    // Completed asynchronously so the request thread is not held for the whole chat completion
     @GetMapping("/{id}/negotiation-guide")
-    public ResponseEntity<OpenAiClient.NegotiationGuide> getNegotiationGuide(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<OpenAiClient.NegotiationGuide>> getNegotiationGuide(@PathVariable Long id) {
         try {
-            OpenAiClient.NegotiationGuide guide = riskService.generateNegotiationGuide(id);
-            return ResponseEntity.ok(guide);
+            return riskService.generateNegotiationGuide(id)
+                    .thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> ResponseEntity.internalServerError().build());
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
         }
     }
 
@@ -10,6 +10,8 @@ public interface RiskRepository extends JpaRepository<Risk, Long> {
 
     List<Risk> findByContractIdOrderByLevelAsc(Long contractId);
 
+    List<Risk> findByContractIdOrderByIdAsc(Long contractId);
+
     long countByContractIdAndLevel(Long contractId, Risk.RiskLevel level);
 
     void deleteByContractId(Long contractId);
@@ -17,6 +19,9 @@ public interface RiskRepository extends JpaRepository<Risk, Long> {
     @Query("SELECT r.level, COUNT(r) FROM Risk r WHERE r.contract.user.email = :email GROUP BY r.level")
     List<Object[]> countByUserEmailGroupByLevel(@Param("email") String email);
 
+    @Query("SELECT r.contract.id, r.level, COUNT(r) FROM Risk r WHERE r.contract.user.email = :email GROUP BY r.contract.id, r.level")
+    List<Object[]> countByUserEmailGroupByContractAndLevel(@Param("email") String email);
+
     @Query("SELECT COUNT(r) FROM Risk r WHERE r.contract.user.email = :email")
     long countByUserEmail(@Param("email") String email);
 }
@@ -5,8 +5,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -28,12 +31,27 @@ public class RiskService {
         return riskRepository.countByContractIdAndLevel(contractId, level);
     }
 
+    /**
+     * Risk counts of all of the user's contracts in one query; contracts without risks are absent.
+     */
+    public Map<Long, Map<Risk.RiskLevel, Long>> countByLevelPerContract(String email) {
+        Map<Long, Map<Risk.RiskLevel, Long>> counts = new HashMap<>();
+        for (Object[] row : riskRepository.countByUserEmailGroupByContractAndLevel(email)) {
+            counts.computeIfAbsent((Long) row[0], id -> new EnumMap<>(Risk.RiskLevel.class))
+                    .put((Risk.RiskLevel) row[1], (Long) row[2]);
+        }
+        return counts;
+    }
+
+    /**
+     * The risk is read inside the transaction; the returned future completes on an HTTP client thread.
+     */
     @Transactional(readOnly = true)
-    public OpenAiClient.NegotiationGuide generateNegotiationGuide(Long riskId) throws IOException {
+    public CompletableFuture<OpenAiClient.NegotiationGuide> generateNegotiationGuide(Long riskId) {
         Risk risk = findById(riskId);
         String language = risk.getContract() != null && risk.getContract().getLanguage() != null
                 ? risk.getContract().getLanguage() : "ko";
-        return openAiClient.generateNegotiationGuide(
+        return openAiClient.generateNegotiationGuideAsync(
                 risk.getClause(),
                 risk.getLevel().name(),
                 risk.getReason(),
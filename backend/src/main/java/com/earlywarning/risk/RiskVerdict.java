@@ -0,0 +1,52 @@
+package com.earlywarning.risk;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Memoized GPT verdict for a chunk evaluated against a specific set of regulations.
+ */
+@Entity
+@Table(name = "risk_verdict_cache")
+@Getter @Setter
+@NoArgsConstructor
+public class RiskVerdict implements Persistable<String> {
+
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    // Matched regulation ids in ",1,5,9," form so a single regulation can be matched with LIKE
+    @Column(name = "regulation_ids", columnDefinition = "TEXT")
+    private String regulationIds;
+
+    @Column(columnDefinition = "TEXT")
+    private String clause;
+
+    // HIGH, MEDIUM, LOW or NONE
+    private String level;
+
+    @Column(columnDefinition = "TEXT")
+    private String reason;
+
+    @Column(columnDefinition = "TEXT")
+    private String suggestion;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Override
+    public String getId() {
+        return cacheKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,121 @@
+package com.earlywarning.risk;
+
+import com.earlywarning.common.OpenAiClient;
+import com.earlywarning.regulation.Regulation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Database-backed memoization of {@link OpenAiClient#analyzeRisk} results.
+ * The key covers the chunk text, the matched regulations and their content hashes, the language
+ * and the chat model, so a changed regulation automatically produces a different key.
+ * Entries referencing an updated regulation are additionally purged via {@link #evictByRegulation}.
+ */
+@Slf4j
+@Component
+public class RiskVerdictCache {
+
+    private final RiskVerdictRepository repository;
+    private final OpenAiClient openAiClient;
+    private final Counter hits;
+    private final Counter misses;
+
+    public RiskVerdictCache(RiskVerdictRepository repository, OpenAiClient openAiClient, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.openAiClient = openAiClient;
+        this.hits = Counter.builder("risk.verdict.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("risk.verdict.cache.requests").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Cached verdict for the chunk; callers evaluate the misses together and {@link #put} the results.
+     */
+    public Optional<OpenAiClient.RiskAnalysis> find(String chunk, List<Regulation> regulations, String language) {
+        Optional<RiskVerdict> cached = lookup(key(chunk, sort(regulations), language));
+        if (cached.isEmpty()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        RiskVerdict v = cached.get();
+        String level = OpenAiClient.normalizeRiskLevel(v.getLevel());
+        if (level == null) {
+            // Stored before levels were validated; evaluate again and overwrite it
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(new OpenAiClient.RiskAnalysis(v.getClause(), level, v.getReason(), v.getSuggestion()));
+    }
+
+    public void put(String chunk, List<Regulation> regulations, String language, OpenAiClient.RiskAnalysis analysis) {
+        String level = OpenAiClient.normalizeRiskLevel(analysis.level());
+        if (level == null) {
+            log.warn("Not caching verdict with invalid level {}", analysis.level());
+            return;
+        }
+        List<Regulation> sorted = sort(regulations);
+        store(key(chunk, sorted, language), sorted,
+                new OpenAiClient.RiskAnalysis(analysis.clause(), level, analysis.reason(), analysis.suggestion()));
+    }
+
+    private static List<Regulation> sort(List<Regulation> regulations) {
+        return regulations.stream()
+                .sorted(Comparator.comparing(Regulation::getId))
+                .toList();
+    }
+
+    public void evictByRegulation(Long regulationId) {
+        int removed = repository.deleteByRegulationId(regulationId);
+        if (removed > 0) {
+            log.info("Evicted {} cached verdicts for regulation {}", removed, regulationId);
+        }
+    }
+
+    private Optional<RiskVerdict> lookup(String key) {
+        try {
+            return repository.findById(key);
+        } catch (Exception e) {
+            log.warn("Verdict cache lookup failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void store(String key, List<Regulation> sorted, OpenAiClient.RiskAnalysis analysis) {
+        String regulationIds = sorted.stream()
+                .map(r -> String.valueOf(r.getId()))
+                .collect(Collectors.joining(",", ",", ","));
+        try {
+            // An upsert, so a row that find() rejected (invalid level) is replaced rather than kept forever
+            repository.upsert(key, regulationIds, analysis.clause(), analysis.level(),
+                    analysis.reason(), analysis.suggestion());
+        } catch (Exception e) {
+            log.warn("Could not store verdict {}: {}", key, e.getMessage());
+        }
+    }
+
+    private String key(String chunk, List<Regulation> sorted, String language) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] chunkHash = MessageDigest.getInstance("SHA-256").digest(chunk.getBytes(StandardCharsets.UTF_8));
+            md.update(chunkHash);
+            for (Regulation r : sorted) {
+                md.update(("|" + r.getId() + ":" + r.getContentHash()).getBytes(StandardCharsets.UTF_8));
+            }
+            md.update(("|" + language + "|" + openAiClient.getChatModel()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
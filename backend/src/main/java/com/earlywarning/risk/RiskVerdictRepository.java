@@ -0,0 +1,36 @@
+package com.earlywarning.risk;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RiskVerdictRepository extends JpaRepository<RiskVerdict, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM risk_verdict_cache WHERE regulation_ids LIKE CONCAT('%,', :regulationId, ',%')",
+            nativeQuery = true)
+    int deleteByRegulationId(@Param("regulationId") Long regulationId);
+
+    /**
+     * Inserts the verdict, or replaces the one stored under the same key (e.g. one with an invalid level).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO risk_verdict_cache (cache_key, regulation_ids, clause, level, reason, suggestion, created_at)
+            VALUES (:key, :regulationIds, :clause, :level, :reason, :suggestion, now())
+            ON CONFLICT (cache_key) DO UPDATE SET
+                regulation_ids = EXCLUDED.regulation_ids,
+                clause = EXCLUDED.clause,
+                level = EXCLUDED.level,
+                reason = EXCLUDED.reason,
+                suggestion = EXCLUDED.suggestion,
+                created_at = EXCLUDED.created_at
+            """, nativeQuery = true)
+    int upsert(@Param("key") String key, @Param("regulationIds") String regulationIds,
+               @Param("clause") String clause, @Param("level") String level,
+               @Param("reason") String reason, @Param("suggestion") String suggestion);
+}
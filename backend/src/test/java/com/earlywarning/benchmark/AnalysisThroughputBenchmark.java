@@ -0,0 +1,333 @@
+package com.earlywarning.benchmark;
+
+import com.earlywarning.contract.AnalysisStageTimers;
+import com.earlywarning.contract.Contract;
+import com.earlywarning.contract.ContractRepository;
+import com.earlywarning.stub.OpenAiStubServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end throughput of the analysis pipeline: PostgreSQL + pgvector in a container seeded with the
+ * regulations.json corpus, the OpenAI API replaced by {@link OpenAiStubServer}, and the bundled mock
+ * contracts uploaded concurrently through the REST API until every analysis has completed.
+ *
+ * Reports contracts/minute, per-stage latency (the analysis.stage timers), end-to-end latency, SQL
+ * statement counts and stub request counts to target/benchmark/analysis-throughput.json.
+ * Excluded from the default build; run with {@code mvn -Pbenchmark test}. Tuned with system properties:
+ * <ul>
+ *   <li>benchmark.contracts (30): uploads in total</li>
+ *   <li>benchmark.concurrency (10): uploads in flight at once</li>
+ *   <li>benchmark.llm-latency-ms (200): median stub response time, log-normal with sigma 0.5</li>
+ *   <li>benchmark.workers (4): analysis.jobs.workers</li>
+ *   <li>benchmark.similarity-threshold (0.25): the stub's bag-of-words embeddings score lower than real ones</li>
+ *   <li>benchmark.unique-content (true): make every upload distinct so the embedding and verdict caches
+ *       do not answer repeated contracts</li>
+ *   <li>benchmark.timeout-minutes (10) and benchmark.output</li>
+ * </ul>
+ */
+@Slf4j
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AnalysisThroughputBenchmark {
+
+    private static final List<String> MOCK_CONTRACTS = List.of(
+            "nda-standard.txt", "saas-agreement-medium-risk.txt", "service-agreement-risky.txt");
+
+    private static final int CONTRACTS = Integer.getInteger("benchmark.contracts", 30);
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 10);
+    private static final int LLM_LATENCY_MS = Integer.getInteger("benchmark.llm-latency-ms", 200);
+    private static final int WORKERS = Integer.getInteger("benchmark.workers", 4);
+    private static final String THRESHOLD = System.getProperty("benchmark.similarity-threshold", "0.25");
+    private static final boolean UNIQUE_CONTENT =
+            Boolean.parseBoolean(System.getProperty("benchmark.unique-content", "true"));
+    private static final Duration TIMEOUT = Duration.ofMinutes(Integer.getInteger("benchmark.timeout-minutes", 10));
+    private static final Path OUTPUT = Path.of(
+            System.getProperty("benchmark.output", "target/benchmark/analysis-throughput.json"));
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"))
+            .withInitScript("schema.sql");
+
+    private static OpenAiStubServer stub;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        stub = OpenAiStubServer.builder()
+                .latency(Duration.ofMillis(LLM_LATENCY_MS), 0.5)
+                .build();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("openai.base-url", stub::baseUrl);
+        registry.add("openai.api-key", () -> "");
+        registry.add("embedding.provider", () -> "openai");
+        registry.add("risk.similarity-threshold", () -> THRESHOLD);
+        registry.add("analysis.jobs.workers", () -> WORKERS);
+        registry.add("analysis.jobs.poll-interval-ms", () -> 50);
+        // Keep every sample of the run instead of the default two-minute decaying window
+        registry.add("management.metrics.distribution.expiry.analysis.stage", () -> "1h");
+        registry.add("management.metrics.distribution.buffer-length.analysis.stage", () -> 1);
+    }
+
+    @TestConfiguration
+    static class QueryCounting {
+        @Bean
+        HibernatePropertiesCustomizer queryCounter() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, QueryCounter.INSTANCE);
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) stub.close();
+    }
+
+    @Test
+    void analyzeMockContracts() throws Exception {
+        String token = register();
+        List<byte[]> contracts = MOCK_CONTRACTS.stream().map(AnalysisThroughputBenchmark::read).toList();
+        QueryCounter.INSTANCE.reset();
+        int embeddingRequestsBefore = stub.requests("/v1/embeddings");
+        int chatRequestsBefore = stub.requests("/v1/chat/completions");
+
+        Instant start = Instant.now();
+        Map<Long, Instant> uploadedAt = upload(token, contracts);
+        Map<Long, Duration> endToEnd = awaitCompletion(uploadedAt);
+        Duration wall = Duration.between(start, Instant.now());
+
+        Map<Long, Contract.AnalysisStatus> statuses = QueryCounter.INSTANCE.ignoring(() ->
+                contractRepository.findAllById(uploadedAt.keySet()).stream()
+                        .collect(Collectors.toMap(Contract::getId, Contract::getStatus)));
+        long completed = statuses.values().stream().filter(s -> s == Contract.AnalysisStatus.COMPLETED).count();
+
+        ObjectNode report = mapper.createObjectNode();
+        report.put("timestamp", start.toString());
+        report.putObject("config")
+                .put("contracts", CONTRACTS)
+                .put("concurrency", CONCURRENCY)
+                .put("workers", WORKERS)
+                .put("llmLatencyMs", LLM_LATENCY_MS)
+                .put("similarityThreshold", Double.parseDouble(THRESHOLD))
+                .put("uniqueContent", UNIQUE_CONTENT);
+        report.put("completed", completed);
+        report.put("failed", statuses.size() - completed);
+        report.put("wallSeconds", wall.toMillis() / 1000.0);
+        report.put("contractsPerMinute", completed * 60_000.0 / Math.max(1, wall.toMillis()));
+
+        ObjectNode stages = report.putObject("stages");
+        for (AnalysisStageTimers.Stage stage : AnalysisStageTimers.Stage.values()) {
+            Timer timer = meterRegistry.find("analysis.stage").tag("stage", stage.tag()).timer();
+            if (timer != null) stages.set(stage.tag(), latency(timer.takeSnapshot()));
+        }
+        report.set("endToEnd", latency(endToEnd.values()));
+
+        Map<String, Long> queries = QueryCounter.INSTANCE.snapshot();
+        long totalQueries = queries.values().stream().mapToLong(Long::longValue).sum();
+        ObjectNode queryReport = report.putObject("queries");
+        queryReport.put("total", totalQueries);
+        queryReport.put("perContract", (double) totalQueries / CONTRACTS);
+        ObjectNode byKeyword = queryReport.putObject("byKeyword");
+        queries.forEach(byKeyword::put);
+
+        report.putObject("llmRequests")
+                .put("embeddings", stub.requests("/v1/embeddings") - embeddingRequestsBefore)
+                .put("chatCompletions", stub.requests("/v1/chat/completions") - chatRequestsBefore)
+                .put("injectedFailures", stub.failures());
+
+        Files.createDirectories(OUTPUT.toAbsolutePath().getParent());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(OUTPUT.toFile(), report);
+        log.info("Analysis throughput: {} contracts in {}s ({} contracts/minute), results in {}",
+                completed, wall.toSeconds(), String.format("%.1f", report.get("contractsPerMinute").asDouble()),
+                OUTPUT.toAbsolutePath());
+
+        assertThat(completed).isEqualTo(CONTRACTS);
+    }
+
+    private String register() {
+        Map<String, String> request = Map.of(
+                "email", "benchmark@earlywarning.test", "password", "benchmark", "name", "Benchmark");
+        ResponseEntity<Map> response = rest.postForEntity("/api/auth/register", request, Map.class);
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        return (String) response.getBody().get("token");
+    }
+
+    private Map<Long, Instant> upload(String token, List<byte[]> contracts) throws Exception {
+        ExecutorService uploaders = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<Map.Entry<Long, Instant>>> futures = new ArrayList<>();
+            for (int i = 0; i < CONTRACTS; i++) {
+                int n = i;
+                futures.add(uploaders.submit(() -> {
+                    String name = MOCK_CONTRACTS.get(n % MOCK_CONTRACTS.size());
+                    byte[] content = contracts.get(n % contracts.size());
+                    if (UNIQUE_CONTENT) content = distinct(content, n);
+                    Instant uploaded = Instant.now();
+                    return Map.entry(upload(token, name.replace(".txt", "-" + n + ".txt"), content), uploaded);
+                }));
+            }
+            Map<Long, Instant> uploadedAt = new HashMap<>();
+            for (Future<Map.Entry<Long, Instant>> future : futures) {
+                Map.Entry<Long, Instant> entry = future.get();
+                uploadedAt.put(entry.getKey(), entry.getValue());
+            }
+            return uploadedAt;
+        } finally {
+            uploaders.shutdownNow();
+        }
+    }
+
+    private Long upload(String token, String filename, byte[] content) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        });
+        body.add("industry", "GENERAL");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        ResponseEntity<Map> response = rest.postForEntity("/api/contracts", new HttpEntity<>(body, headers), Map.class);
+        assertThat(response.getStatusCode().is2xxSuccessful()).as("upload of %s", filename).isTrue();
+        return ((Number) response.getBody().get("id")).longValue();
+    }
+
+    private Map<Long, Duration> awaitCompletion(Map<Long, Instant> uploadedAt) throws InterruptedException {
+        Map<Long, Duration> endToEnd = new HashMap<>();
+        Instant deadline = Instant.now().plus(TIMEOUT);
+        while (endToEnd.size() < uploadedAt.size() && Instant.now().isBefore(deadline)) {
+            List<Long> pending = uploadedAt.keySet().stream().filter(id -> !endToEnd.containsKey(id)).toList();
+            List<Contract> contracts = QueryCounter.INSTANCE.ignoring(() -> contractRepository.findAllById(pending));
+            Instant now = Instant.now();
+            for (Contract contract : contracts) {
+                if (contract.getStatus() != Contract.AnalysisStatus.ANALYZING) {
+                    endToEnd.put(contract.getId(), Duration.between(uploadedAt.get(contract.getId()), now));
+                }
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        return endToEnd;
+    }
+
+    private ObjectNode latency(HistogramSnapshot snapshot) {
+        ObjectNode node = mapper.createObjectNode()
+                .put("count", snapshot.count())
+                .put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS))
+                .put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile p : snapshot.percentileValues()) {
+            node.put("p" + Math.round(p.percentile() * 100) + "Ms", p.value(TimeUnit.MILLISECONDS));
+        }
+        // Cumulative bucket counts, only where the count changes
+        ArrayNode buckets = node.putArray("histogram");
+        double previous = 0;
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            if (bucket.count() > previous) {
+                buckets.addObject().put("leMs", bucket.bucket(TimeUnit.MILLISECONDS)).put("count", (long) bucket.count());
+                previous = bucket.count();
+            }
+        }
+        return node;
+    }
+
+    private ObjectNode latency(Collection<Duration> durations) {
+        long[] millis = durations.stream().mapToLong(Duration::toMillis).sorted().toArray();
+        ObjectNode node = mapper.createObjectNode().put("count", millis.length);
+        if (millis.length == 0) return node;
+        node.put("meanMs", Arrays.stream(millis).average().orElse(0))
+                .put("maxMs", millis[millis.length - 1]);
+        for (double p : new double[]{0.5, 0.95, 0.99}) {
+            int index = (int) Math.ceil(p * millis.length) - 1;
+            node.put("p" + Math.round(p * 100) + "Ms", millis[Math.max(0, index)]);
+        }
+        return node;
+    }
+
+    /**
+     * Tags every line with the upload number, so no chunk is shared with another upload.
+     */
+    private static byte[] distinct(byte[] content, int n) {
+        String text = new String(content, StandardCharsets.UTF_8);
+        return text.lines()
+                .map(line -> line.isBlank() ? line : line + " (" + n + ")")
+                .collect(Collectors.joining("\n"))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] read(String name) {
+        try (InputStream in = new ClassPathResource("data/mock-contracts/" + name).getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
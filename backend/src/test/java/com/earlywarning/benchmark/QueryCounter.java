@@ -0,0 +1,59 @@
+package com.earlywarning.benchmark;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counts the SQL statements Hibernate prepares, by leading keyword (select, insert, update, ...).
+ * Every query of the analysis pipeline goes through Hibernate, native queries included.
+ */
+class QueryCounter implements StatementInspector {
+
+    static final QueryCounter INSTANCE = new QueryCounter();
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> ignored = ThreadLocal.withInitial(() -> false);
+
+    @Override
+    public String inspect(String sql) {
+        if (!ignored.get()) {
+            counts.computeIfAbsent(keyword(sql), k -> new LongAdder()).increment();
+        }
+        return sql;
+    }
+
+    /**
+     * Runs the action without counting the statements it issues on this thread, e.g. the benchmark's own polling.
+     */
+    <T> T ignoring(Supplier<T> action) {
+        ignored.set(true);
+        try {
+            return action.get();
+        } finally {
+            ignored.set(false);
+        }
+    }
+
+    void reset() {
+        counts.clear();
+    }
+
+    Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((keyword, count) -> snapshot.put(keyword, count.sum()));
+        return snapshot;
+    }
+
+    private static String keyword(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) end++;
+        return end == 0 ? "other" : trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+}
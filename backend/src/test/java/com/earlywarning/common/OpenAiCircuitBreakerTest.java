@@ -0,0 +1,28 @@
+package com.earlywarning.common;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OpenAiCircuitBreakerTest {
+
+    @Test
+    void newWorkWaitsForTheHalfOpenProbe() throws Exception {
+        // Open for 0s: the circuit turns half-open as soon as it is looked at
+        OpenAiCircuitBreaker breaker = new OpenAiCircuitBreaker(new SimpleMeterRegistry(), 1, 0);
+        breaker.recordFailure();
+
+        assertThat(breaker.getState()).isEqualTo(OpenAiCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowsNewWork()).isTrue();
+
+        breaker.acquire();
+        assertThat(breaker.allowsNewWork()).isFalse();
+        assertThatThrownBy(breaker::acquire).isInstanceOf(OpenAiCircuitBreaker.CircuitOpenException.class);
+
+        breaker.recordSuccess();
+        assertThat(breaker.getState()).isEqualTo(OpenAiCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowsNewWork()).isTrue();
+    }
+}
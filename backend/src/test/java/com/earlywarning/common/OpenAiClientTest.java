@@ -0,0 +1,173 @@
+package com.earlywarning.common;
+
+import com.earlywarning.embedding.EmbeddingCache;
+import com.earlywarning.stub.OpenAiStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OpenAiClientTest {
+
+    private static final int DIMENSION = 64;
+
+    private OpenAiStubServer stub;
+    private OpenAiClient client;
+    private OpenAiRateGovernor governor;
+    private OpenAiCircuitBreaker circuitBreaker;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) client.shutdown();
+        if (governor != null) governor.shutdown();
+        if (stub != null) stub.close();
+    }
+
+    @Test
+    void embeddingsComeBackInInputOrder() throws IOException {
+        start(OpenAiStubServer.builder().dimension(DIMENSION));
+        List<String> texts = List.of("제1조 계약 해지", "Section 2 Liability", "제1조 계약 해지");
+
+        List<float[]> embeddings = client.createEmbeddings(texts);
+
+        assertThat(embeddings).hasSize(3);
+        for (int i = 0; i < texts.size(); i++) {
+            assertThat(embeddings.get(i)).containsExactly(OpenAiStubServer.embedding(texts.get(i), DIMENSION));
+        }
+        // Duplicate texts are sent once
+        assertThat(stub.requests("/v1/embeddings")).isEqualTo(1);
+    }
+
+    @Test
+    void batchedRiskAnalysisReturnsOneVerdictPerText() throws IOException {
+        start(OpenAiStubServer.builder());
+        List<OpenAiClient.RiskItem> items = List.of(
+                new OpenAiClient.RiskItem("The supplier may terminate at any time.", List.of("Fair Terms Act: unfair termination")),
+                new OpenAiClient.RiskItem("Liability is unlimited.", List.of("Civil Code: liability")),
+                new OpenAiClient.RiskItem("Notices are sent by email.", List.of("Civil Code: liability")));
+
+        List<OpenAiClient.RiskAnalysis> verdicts = client.analyzeRiskBatch(items, "en");
+
+        assertThat(verdicts).hasSize(3);
+        assertThat(verdicts).extracting(OpenAiClient.RiskAnalysis::level)
+                .allSatisfy(level -> assertThat(level).isIn("HIGH", "MEDIUM", "LOW", "NONE"));
+        assertThat(verdicts.get(1).clause()).isEqualTo("Liability is unlimited.");
+        assertThat(stub.requests("/v1/chat/completions")).isEqualTo(1);
+    }
+
+    @Test
+    void unreadableBatchIsEvaluatedTextByText() throws IOException {
+        start(OpenAiStubServer.builder().truncateBatches());
+        List<OpenAiClient.RiskItem> items = List.of(
+                new OpenAiClient.RiskItem("The supplier may terminate at any time.", List.of("Fair Terms Act: unfair termination")),
+                new OpenAiClient.RiskItem("Liability is unlimited.", List.of("Civil Code: liability")));
+
+        List<OpenAiClient.RiskAnalysis> verdicts = client.analyzeRiskBatch(items, "en");
+
+        assertThat(verdicts).extracting(OpenAiClient.RiskAnalysis::clause)
+                .containsExactly("The supplier may terminate at any time.", "Liability is unlimited.");
+        // The batch is not retried as a whole
+        assertThat(stub.requests("/v1/chat/completions")).isEqualTo(3);
+    }
+
+    @Test
+    void failedRequestsAreRetried() {
+        start(OpenAiStubServer.builder().errorRate(0.3).rateLimitRate(0.1).latency(Duration.ofMillis(5), 0.5));
+
+        List<CompletableFuture<OpenAiClient.RiskAnalysis>> calls = IntStream.range(0, 30)
+                .mapToObj(i -> client.analyzeRiskAsync("Clause " + i + " waives all consumer rights.",
+                        List.of("Consumer Act: waiver"), "ko"))
+                .toList();
+
+        assertThat(calls).allSatisfy(call -> assertThat(call.join().level()).isNotBlank());
+        assertThat(stub.failures()).isPositive();
+        assertThat(stub.requests("/v1/chat/completions")).isEqualTo(30 + stub.failures());
+    }
+
+    @Test
+    void unusableAnswersAreNeitherRetriedNorCountedAsUpstreamFailures() {
+        start(OpenAiStubServer.builder().verdictField("clause", null), 1);
+
+        assertThatThrownBy(() -> client.analyzeRisk("Liability is unlimited.", List.of("Civil Code: liability"), "en"))
+                .isInstanceOf(OpenAiResponseException.class);
+
+        assertThat(stub.requests("/v1/chat/completions")).isEqualTo(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(OpenAiCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void riskLevelsAreNormalized() throws IOException {
+        start(OpenAiStubServer.builder().verdictField("level", " high "));
+
+        OpenAiClient.RiskAnalysis verdict = client.analyzeRisk("Liability is unlimited.", List.of("Civil Code: liability"), "en");
+
+        assertThat(verdict.level()).isEqualTo("HIGH");
+    }
+
+    @Test
+    void unknownRiskLevelIsAParseFailure() {
+        start(OpenAiStubServer.builder().verdictField("level", "CRITICAL"));
+        List<OpenAiClient.RiskItem> items = List.of(
+                new OpenAiClient.RiskItem("Liability is unlimited.", List.of("Civil Code: liability")),
+                new OpenAiClient.RiskItem("Notices are sent by email.", List.of("Civil Code: liability")));
+
+        assertThatThrownBy(() -> client.analyzeRisk("Liability is unlimited.", List.of("Civil Code: liability"), "en"))
+                .isInstanceOf(OpenAiResponseException.class)
+                .hasMessageContaining("CRITICAL");
+        assertThatThrownBy(() -> client.analyzeRiskBatch(items, "en"))
+                .isInstanceOf(OpenAiResponseException.class);
+        // One single call, then the batch and its per-text fallbacks, none of them retried
+        assertThat(stub.requests("/v1/chat/completions")).isEqualTo(1 + 1 + items.size());
+    }
+
+    private void start(OpenAiStubServer.Builder builder) {
+        start(builder, 1000);
+    }
+
+    private void start(OpenAiStubServer.Builder builder, int failureThreshold) {
+        try {
+            stub = builder.build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        EmbeddingCache cache = mock(EmbeddingCache.class);
+        when(cache.key(anyString(), anyString())).thenAnswer(i -> i.getArgument(0) + "|" + i.getArgument(1));
+        when(cache.getAll(any())).thenAnswer(i -> new HashMap<>());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        governor = new OpenAiRateGovernor(registry, 100_000, 100_000_000, 16, 64);
+        circuitBreaker = new OpenAiCircuitBreaker(registry, failureThreshold, 1);
+        client = new OpenAiClient(cache, governor, circuitBreaker, registry);
+        ReflectionTestUtils.setField(client, "baseUrl", stub.baseUrl() + "/");
+        ReflectionTestUtils.setField(client, "apiKey", "");
+        ReflectionTestUtils.setField(client, "embeddingModel", "text-embedding-3-small");
+        ReflectionTestUtils.setField(client, "chatModel", "gpt-4o");
+        ReflectionTestUtils.setField(client, "embeddingBatchSize", 256);
+        ReflectionTestUtils.setField(client, "embeddingBatchTokens", 100_000);
+        ReflectionTestUtils.setField(client, "maxAttempts", 10);
+        ReflectionTestUtils.setField(client, "baseBackoffMillis", 1L);
+        ReflectionTestUtils.setField(client, "maxBackoffMillis", 20L);
+        ReflectionTestUtils.setField(client, "embeddingTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(client, "chatTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(client, "hedgingEnabled", false);
+        ReflectionTestUtils.setField(client, "hedgeMaxInputs", 16);
+        ReflectionTestUtils.setField(client, "maxRequests", 64);
+        ReflectionTestUtils.setField(client, "maxIdleConnections", 4);
+        client.init();
+    }
+}
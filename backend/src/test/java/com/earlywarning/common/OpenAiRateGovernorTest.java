@@ -0,0 +1,110 @@
+package com.earlywarning.common;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class OpenAiRateGovernorTest {
+
+    private static final String MODEL = "gpt-4o";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OpenAiRateGovernor governor;
+
+    @AfterEach
+    void tearDown() {
+        if (governor != null) governor.shutdown();
+    }
+
+    @Test
+    void concurrencyLimitGrowsByAboutOnePerLimitOfSuccesses() {
+        governor = governor(2, 4);
+
+        for (int i = 0; i < 2; i++) succeed();
+        // 2 + 1/2 + 1/2.5
+        assertThat(limit()).isCloseTo(2.9, offset(1e-9));
+
+        for (int i = 0; i < 50; i++) succeed();
+        assertThat(limit()).isEqualTo(4.0);
+    }
+
+    @Test
+    void rateLimitHalvesTheLimitOncePerBurst() {
+        governor = governor(8, 8);
+
+        List<OpenAiRateGovernor.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) permits.add(acquire());
+        permits.get(0).rateLimited(null, Duration.ofMillis(1));
+        permits.get(1).rateLimited(null, Duration.ofMillis(1));
+        assertThat(limit()).isEqualTo(4.0);
+
+        // Releasing the same permit twice must not free a second slot
+        permits.get(2).release();
+        permits.get(2).release();
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void requestsWaitForTheRetryAfterPause() {
+        governor = governor(8, 8);
+
+        acquire().rateLimited(null, Duration.ofMillis(300));
+        long start = System.nanoTime();
+        acquire().release();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(250);
+    }
+
+    @Test
+    void waitersAreAdmittedRoundRobinAcrossCallers() {
+        governor = governor(1, 1);
+        OpenAiRateGovernor.Permit running = acquire();
+
+        // Permits are handed out on the thread that releases the previous one
+        List<String> admitted = new ArrayList<>();
+        List<OpenAiRateGovernor.Permit> permits = new ArrayList<>();
+        for (String caller : List.of("large", "large", "large", "small")) {
+            governor.acquireAsync(caller, MODEL, 10).thenAccept(permit -> {
+                admitted.add(caller);
+                permits.add(permit);
+            });
+        }
+        assertThat(admitted).isEmpty();
+
+        running.release();
+        for (int i = 0; i < 4; i++) {
+            assertThat(admitted).hasSize(i + 1);
+            permits.get(i).release();
+        }
+
+        assertThat(admitted).containsExactly("large", "small", "large", "large");
+    }
+
+    private OpenAiRateGovernor.Permit acquire() {
+        return governor.acquireAsync(MODEL, 10).join();
+    }
+
+    private void succeed() {
+        acquire().succeeded(null, -1);
+    }
+
+    private double limit() {
+        return meterRegistry.get("openai.governor.concurrency.limit").tag("model", MODEL).gauge().value();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("openai.governor.in-flight").tag("model", MODEL).gauge().value();
+    }
+
+    private OpenAiRateGovernor governor(int initialConcurrency, int maxConcurrency) {
+        return new OpenAiRateGovernor(meterRegistry, 10_000, 1_000_000, initialConcurrency, maxConcurrency);
+    }
+}
@@ -0,0 +1,58 @@
+package com.earlywarning.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgVectorCodecTest {
+
+    private static final float[] VECTOR = {0.5f, -0.012345678f, 3.0e-7f, -1.0f};
+
+    @Test
+    void binaryFormatMatchesVectorSend() {
+        byte[] bytes = PgVectorCodec.encode(VECTOR);
+
+        assertThat(bytes).hasSize(PgVectorCodec.encodedLength(VECTOR)).hasSize(4 + 4 * VECTOR.length);
+        // int16 dimension, int16 unused, then big-endian float4s
+        assertThat(bytes[0]).isZero();
+        assertThat(bytes[1]).isEqualTo((byte) VECTOR.length);
+        assertThat(bytes[2]).isZero();
+        assertThat(bytes[3]).isZero();
+        assertThat(Float.intBitsToFloat(((bytes[4] & 0xFF) << 24) | ((bytes[5] & 0xFF) << 16)
+                | ((bytes[6] & 0xFF) << 8) | (bytes[7] & 0xFF))).isEqualTo(VECTOR[0]);
+        assertThat(PgVectorCodec.decode(bytes)).containsExactly(VECTOR);
+    }
+
+    @Test
+    void encodesAndDecodesAtAnOffset() {
+        byte[] bytes = new byte[3 + PgVectorCodec.encodedLength(VECTOR)];
+        PgVectorCodec.encode(VECTOR, bytes, 3);
+
+        assertThat(PgVectorCodec.decode(bytes, 3)).containsExactly(VECTOR);
+    }
+
+    @Test
+    void decodesTextFormat() {
+        String text = PgVectorCodec.toText(VECTOR);
+
+        assertThat(text).startsWith("[0.5,").endsWith(",-1.0]");
+        assertThat(PgVectorCodec.decode(text.getBytes(StandardCharsets.US_ASCII))).containsExactly(VECTOR);
+        assertThat(PgVectorCodec.decode("[1,2.5,-3e-2]".getBytes(StandardCharsets.US_ASCII)))
+                .containsExactly(1f, 2.5f, -0.03f);
+        assertThat(PgVectorCodec.decode("[]".getBytes(StandardCharsets.US_ASCII))).isEmpty();
+    }
+
+    @Test
+    void largestDimensionIsNotMistakenForText() {
+        // pgvector's limit is 16000 dimensions; the first header byte stays below '['
+        float[] vector = new float[16000];
+        vector[15999] = 1f;
+
+        float[] decoded = PgVectorCodec.decode(PgVectorCodec.encode(vector));
+
+        assertThat(decoded).hasSize(16000);
+        assertThat(decoded[15999]).isEqualTo(1f);
+    }
+}
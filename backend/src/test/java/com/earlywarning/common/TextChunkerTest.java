@@ -0,0 +1,117 @@
+package com.earlywarning.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextChunkerTest {
+
+    private static final String KOREAN = """
+            임대차 계약서
+
+            제1조 (목적) 본 계약은 임대인과 임차인 사이의 임대차 관계를 정한다.
+
+            제2조 (보증금) 임차인은 계약 체결 시 보증금을 지급한다.
+
+            제 3 조 (해지) 임차인이 차임을 2회 이상 연체한 때에는 임대인은 계약을 해지할 수 있다.
+            """;
+
+    private static final String ENGLISH = """
+            SERVICE AGREEMENT
+
+            Section 1. Fees
+            1.1 Customer shall pay all fees within thirty days of the invoice date.
+            1.2 Late payments accrue interest at two percent per month.
+            1.3 Fees are non-refundable.
+
+            Section 2. Term
+            This Agreement renews automatically. Either party may terminate it with notice.
+            """;
+
+    @Test
+    void shortClausesAreMergedUpToTheChunkSize() {
+        List<TextChunker.Chunk> chunks = chunker(500).chunk(KOREAN);
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).toString()).isEqualTo(KOREAN.strip());
+        assertThat(chunks.get(0).start()).isZero();
+        assertThat(chunks.get(0).hasHeading()).isFalse();
+    }
+
+    @Test
+    void koreanClausesAreSplitAtTheirHeadings() {
+        List<TextChunker.Chunk> chunks = chunker(50).chunk(KOREAN);
+
+        assertThat(chunks).extracting(TextChunker.Chunk::toString).containsExactly(
+                // The title is short enough to be merged into the first clause
+                "임대차 계약서\n\n제1조 (목적) 본 계약은 임대인과 임차인 사이의 임대차 관계를 정한다.",
+                "제2조 (보증금) 임차인은 계약 체결 시 보증금을 지급한다.",
+                "제 3 조 (해지) 임차인이 차임을 2회 이상 연체한 때에는 임대인은 계약을 해지할 수 있다.");
+        assertOffsets(KOREAN, chunks);
+    }
+
+    @Test
+    void longClauseIsSplitBySubItemUnderItsHeading() {
+        List<TextChunker.Chunk> chunks = chunker(80).chunk(ENGLISH);
+
+        assertThat(chunks).extracting(TextChunker.Chunk::toString).containsExactly(
+                "SERVICE AGREEMENT",
+                "Section 1. Fees\n1.1 Customer shall pay all fees within thirty days of the invoice date.",
+                "Section 1. Fees\n1.2 Late payments accrue interest at two percent per month.",
+                "Section 1. Fees\n1.3 Fees are non-refundable.",
+                "Section 2. Term\nThis Agreement renews automatically.",
+                "Either party may terminate it with notice.");
+        assertThat(chunks.get(1).hasHeading()).isTrue();
+        assertThat(chunks.get(1).start()).isEqualTo(ENGLISH.indexOf("1.1 Customer"));
+        assertThat(chunks.get(1).headingStart()).isEqualTo(ENGLISH.indexOf("Section 1."));
+        assertThat(ENGLISH.substring(chunks.get(1).headingStart(), chunks.get(1).headingEnd()))
+                .isEqualTo("Section 1. Fees");
+        assertOffsets(ENGLISH, chunks);
+    }
+
+    @Test
+    void unstructuredTextIsChunkedBySentence() {
+        String text = "임차인은 보증금을 지급한다. 임대인은 목적물을 인도한다.\n"
+                + "The tenant pays the rent monthly! Is the deposit refundable? Yes.";
+
+        List<TextChunker.Chunk> chunks = chunker(40).chunk(text);
+
+        assertThat(chunks).extracting(TextChunker.Chunk::toString).containsExactly(
+                "임차인은 보증금을 지급한다. 임대인은 목적물을 인도한다.",
+                "The tenant pays the rent monthly!",
+                "Is the deposit refundable? Yes.");
+        assertOffsets(text, chunks);
+    }
+
+    @Test
+    void chunkReadsAsItsText() {
+        TextChunker.Chunk chunk = chunker(80).chunk(ENGLISH).get(2);
+        String expected = chunk.toString();
+
+        assertThat(chunk.length()).isEqualTo(expected.length());
+        StringBuilder chars = new StringBuilder();
+        for (int i = 0; i < chunk.length(); i++) chars.append(chunk.charAt(i));
+        assertThat(chars.toString()).isEqualTo(expected);
+        assertThat(chunk.subSequence(5, 20).toString()).isEqualTo(expected.substring(5, 20));
+    }
+
+    /**
+     * The body of every chunk is the span of the text at its offsets.
+     */
+    private static void assertOffsets(String text, List<TextChunker.Chunk> chunks) {
+        for (TextChunker.Chunk chunk : chunks) {
+            String body = chunk.toString();
+            if (chunk.hasHeading()) body = body.substring(body.indexOf('\n') + 1);
+            assertThat(text.substring(chunk.start(), chunk.end())).isEqualTo(body);
+        }
+    }
+
+    private static TextChunker chunker(int chunkSize) {
+        TextChunker chunker = new TextChunker();
+        ReflectionTestUtils.setField(chunker, "chunkSize", chunkSize);
+        return chunker;
+    }
+}
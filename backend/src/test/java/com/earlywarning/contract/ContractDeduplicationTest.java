@@ -0,0 +1,154 @@
+package com.earlywarning.contract;
+
+import com.earlywarning.common.TextChunker;
+import com.earlywarning.risk.Risk;
+import com.earlywarning.risk.RiskRepository;
+import com.earlywarning.stub.OpenAiStubServer;
+import com.earlywarning.auth.User;
+import com.earlywarning.auth.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Uploading a contract that was already analyzed copies the analysis, and a later revision of it is
+ * still analyzed incrementally against the copy.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest
+class ContractDeduplicationTest {
+
+    private static final String EMAIL = "dedup@example.com";
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"))
+            .withInitScript("schema.sql");
+
+    private static OpenAiStubServer stub;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        stub = OpenAiStubServer.builder().build();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("openai.base-url", stub::baseUrl);
+        registry.add("openai.api-key", () -> "");
+        registry.add("embedding.provider", () -> "openai");
+        // The stub's bag-of-words embeddings score lower than real ones
+        registry.add("risk.similarity-threshold", () -> "0.25");
+        registry.add("analysis.jobs.poll-interval-ms", () -> 50);
+    }
+
+    @Autowired
+    private ContractService contractService;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private RiskRepository riskRepository;
+
+    @Autowired
+    private ChunkCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ChunkCheckpointStore checkpointStore;
+
+    @Autowired
+    private TextChunker textChunker;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) stub.close();
+    }
+
+    @Test
+    void revisionOfADeduplicatedContractIsSeededFromTheCopy() throws Exception {
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setPassword("unused");
+        user.setName("Dedup");
+        userRepository.save(user);
+
+        String original = read("nda-standard.txt");
+        Contract first = upload(original);
+        assertThat(awaitCompletion(first.getId())).isEqualTo(Contract.AnalysisStatus.COMPLETED);
+
+        Contract copy = upload(original);
+        assertThat(copy.getId()).isNotEqualTo(first.getId());
+        assertThat(copy.getStatus()).isEqualTo(Contract.AnalysisStatus.COMPLETED);
+
+        List<Risk> sourceRisks = riskRepository.findByContractIdOrderByIdAsc(first.getId());
+        List<Risk> copiedRisks = riskRepository.findByContractIdOrderByIdAsc(copy.getId());
+        assertThat(copiedRisks).extracting(Risk::getClauseStart, Risk::getLevel, Risk::getClause)
+                .containsExactlyElementsOf(sourceRisks.stream()
+                        .map(r -> tuple(r.getClauseStart(), r.getLevel(), r.getClause()))
+                        .toList());
+        int checkpoints = checkpointRepository.findByContractIdOrderByChunkIndex(first.getId()).size();
+        assertThat(checkpoints).isPositive();
+        assertThat(checkpointRepository.findByContractIdOrderByChunkIndex(copy.getId())).hasSize(checkpoints);
+
+        String revised = original.replace("two (2) years", "five (5) years");
+        assertThat(revised).isNotEqualTo(original);
+        List<String> chunks = textChunker.chunk(revised).stream().map(TextChunker.Chunk::toString).toList();
+        long unscheduled = Long.MAX_VALUE;
+        try {
+            int seeded = checkpointStore.seedFromPrevious(copy.getId(), unscheduled, chunks);
+            assertThat(seeded).isPositive().isLessThan(chunks.size());
+        } finally {
+            checkpointStore.clear(unscheduled);
+        }
+
+        Contract revision = upload(revised);
+        assertThat(revision.getBaseContractId()).isEqualTo(copy.getId());
+        assertThat(awaitCompletion(revision.getId())).isEqualTo(Contract.AnalysisStatus.COMPLETED);
+    }
+
+    private Contract upload(String text) throws IOException {
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "nda.txt", "text/plain", text.getBytes(StandardCharsets.UTF_8));
+        return contractService.uploadAndStartAnalysis(file, EMAIL, "GENERAL", null);
+    }
+
+    private Contract.AnalysisStatus awaitCompletion(Long contractId) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofMinutes(2));
+        Contract.AnalysisStatus status = null;
+        while (Instant.now().isBefore(deadline)) {
+            status = contractRepository.findById(contractId).orElseThrow().getStatus();
+            if (status != Contract.AnalysisStatus.ANALYZING) break;
+            Thread.sleep(100);
+        }
+        return status;
+    }
+
+    private static String read(String name) throws IOException {
+        try (InputStream in = new ClassPathResource("data/mock-contracts/" + name).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.earlywarning.regulation;
+
+import com.earlywarning.embedding.EmbeddingProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RegulationVectorIndexTest {
+
+    private RegulationRepository regulationRepository;
+    private RegulationEmbeddingRepository embeddingRepository;
+    private EmbeddingProvider embeddingProvider;
+    private final List<Regulation> regulations = new ArrayList<>();
+    private final List<RegulationEmbedding> embeddings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        regulationRepository = mock(RegulationRepository.class);
+        embeddingRepository = mock(RegulationEmbeddingRepository.class);
+        embeddingProvider = mock(EmbeddingProvider.class);
+        when(embeddingProvider.id()).thenReturn("test");
+        when(embeddingProvider.dimension()).thenReturn(3);
+        when(embeddingRepository.findByProvider("test")).thenReturn(embeddings);
+        when(regulationRepository.findAllById(anyIterable())).thenReturn(regulations);
+
+        add(1L, "소비자보호", 1, 0, 0);
+        add(2L, "약관규제", 0.9f, 0.1f, 0);
+        add(3L, "소비자보호", 0, 1, 0);
+        // Not normalized: only the direction counts
+        add(4L, "국세청", 10, 10, 0);
+        // Embedded with another model's dimension
+        RegulationEmbedding other = new RegulationEmbedding();
+        other.setRegulationId(5L);
+        other.setEmbedding(new float[]{1, 0});
+        embeddings.add(other);
+    }
+
+    @Test
+    void coldIndexDefersToPgvector() {
+        assertThat(index(5000).findSimilar(new float[]{1, 0, 0}, 1.0, null, 5)).isEmpty();
+    }
+
+    @Test
+    void returnsClosestRegulationsWithinTheThreshold() {
+        RegulationVectorIndex index = index(5000);
+        index.refresh();
+
+        assertThat(index.findSimilar(new float[]{2, 0, 0}, 0.5, null, 5).orElseThrow())
+                .extracting(Regulation::getId).containsExactly(1L, 2L, 4L);
+        assertThat(index.findSimilar(new float[]{1, 0, 0}, 0.5, null, 2).orElseThrow())
+                .extracting(Regulation::getId).containsExactly(1L, 2L);
+        assertThat(index.findSimilar(new float[]{0, 0, 1}, 0.5, null, 5).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void filtersByCategory() {
+        RegulationVectorIndex index = index(5000);
+        index.refresh();
+
+        assertThat(index.findSimilar(new float[]{1, 1, 0}, 2.0, List.of("소비자보호", "소비자보호"), 5).orElseThrow())
+                .extracting(Regulation::getId).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.findSimilar(new float[]{1, 1, 0}, 2.0, List.of("없는분류"), 5).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void queryOfAnotherDimensionDefersToPgvector() {
+        RegulationVectorIndex index = index(5000);
+        index.refresh();
+
+        assertThat(index.findSimilar(new float[]{1, 0}, 0.5, null, 5)).isEmpty();
+    }
+
+    @Test
+    void corpusLargerThanTheMaximumIsNotLoaded() {
+        RegulationVectorIndex index = index(3);
+        index.refresh();
+
+        assertThat(index.findSimilar(new float[]{1, 0, 0}, 0.5, null, 5)).isEmpty();
+    }
+
+    private RegulationVectorIndex index(int maxSize) {
+        return new RegulationVectorIndex(regulationRepository, embeddingRepository, embeddingProvider, maxSize);
+    }
+
+    private void add(Long id, String category, float... vector) {
+        Regulation regulation = new Regulation();
+        regulation.setId(id);
+        regulation.setCategory(category);
+        regulations.add(regulation);
+        RegulationEmbedding embedding = new RegulationEmbedding();
+        embedding.setRegulationId(id);
+        embedding.setEmbedding(vector);
+        embeddings.add(embedding);
+    }
+}
@@ -0,0 +1,150 @@
+package com.earlywarning.regulation;
+
+import com.earlywarning.common.PgVectorCodec;
+import com.earlywarning.embedding.EmbeddingProvider;
+import com.earlywarning.stub.OpenAiStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recall@k of the pgvector ANN indexes built by {@link VectorIndexManager} against an exact scan,
+ * with the configured index and search parameters, over a clustered synthetic corpus loaded next to
+ * the seeded regulations.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest
+class VectorIndexRecallTest {
+
+    private static final int DIMENSION = 128;
+    private static final int ROWS = 5000;
+    private static final int CLUSTERS = 50;
+    private static final int K = 10;
+    private static final double TARGET_RECALL = 0.9;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"))
+            .withInitScript("schema.sql");
+
+    private static OpenAiStubServer stub;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        stub = OpenAiStubServer.builder().dimension(DIMENSION).build();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("openai.base-url", stub::baseUrl);
+        registry.add("openai.api-key", () -> "");
+        registry.add("embedding.provider", () -> "openai");
+        registry.add("openai.embedding-dimension", () -> DIMENSION);
+    }
+
+    @Autowired
+    private VectorIndexManager indexManager;
+
+    @Autowired
+    private RegulationRepositoryImpl repositoryImpl;
+
+    @Autowired
+    private EmbeddingProvider embeddingProvider;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) stub.close();
+    }
+
+    @BeforeEach
+    void loadCorpus() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM regulation_embedding WHERE regulation_id >= 1000000",
+                Long.class) > 0) {
+            return;
+        }
+        Random random = new Random(42);
+        List<float[]> centers = new ArrayList<>();
+        for (int c = 0; c < CLUSTERS; c++) centers.add(gaussian(random, 1.0));
+
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            float[] center = centers.get(i % CLUSTERS);
+            float[] noise = gaussian(random, 0.3);
+            for (int d = 0; d < DIMENSION; d++) noise[d] += center[d];
+            rows.add(new Object[]{1_000_000L + i, embeddingProvider.id(), DIMENSION, PgVectorCodec.toText(noise)});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO regulation_embedding (regulation_id, provider, dimension, embedding, created_at)
+                VALUES (?, ?, ?, ?::vector, now())
+                """, rows);
+        jdbcTemplate.execute("ANALYZE regulation_embedding");
+    }
+
+    @Test
+    void hnswMeetsTheRecallTarget() {
+        useIndex("hnsw");
+
+        assertThat(plan()).contains("_hnsw");
+        assertThat(indexManager.measureRecall(100, K)).isGreaterThanOrEqualTo(TARGET_RECALL);
+    }
+
+    @Test
+    void ivfflatMeetsTheRecallTarget() {
+        useIndex("ivfflat");
+
+        assertThat(plan()).contains("_ivfflat");
+        assertThat(indexManager.measureRecall(100, K)).isGreaterThanOrEqualTo(TARGET_RECALL);
+    }
+
+    private void useIndex(String type) {
+        ReflectionTestUtils.setField(indexManager, "indexType", type);
+        ReflectionTestUtils.setField(repositoryImpl, "indexType", type);
+        indexManager.ensureIndexes();
+    }
+
+    /**
+     * Plan of the nearest-neighbour query, to check the index matches the expression the repository orders by.
+     */
+    private String plan() {
+        String query = PgVectorCodec.toText(gaussian(new Random(7), 1.0));
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("""
+                    EXPLAIN SELECT e.regulation_id FROM regulation_embedding e
+                    WHERE e.provider = ?
+                    ORDER BY (e.embedding::vector(%d)) <=> ?::vector
+                    LIMIT %d
+                    """.formatted(DIMENSION, K), String.class, embeddingProvider.id(), query));
+        });
+    }
+
+    private static float[] gaussian(Random random, double sigma) {
+        float[] v = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) v[d] = (float) (random.nextGaussian() * sigma);
+        return v;
+    }
+}
@@ -0,0 +1,94 @@
+package com.earlywarning.risk;
+
+import com.earlywarning.common.OpenAiClient;
+import com.earlywarning.regulation.Regulation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RiskVerdictCacheTest {
+
+    private RiskVerdictRepository repository;
+    private RiskVerdictCache cache;
+    private final List<Regulation> regulations = List.of(regulation(1L));
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RiskVerdictRepository.class);
+        OpenAiClient openAiClient = mock(OpenAiClient.class);
+        when(openAiClient.getChatModel()).thenReturn("gpt-4o");
+        cache = new RiskVerdictCache(repository, openAiClient, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void verdictWithInvalidLevelIsNotStored() {
+        cache.put("Liability is unlimited.", regulations, "en",
+                new OpenAiClient.RiskAnalysis("Liability is unlimited.", "CRITICAL", "reason", null));
+
+        verify(repository, never()).upsert(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void storedVerdictWithInvalidLevelIsAMiss() {
+        RiskVerdict stored = new RiskVerdict();
+        stored.setClause("Liability is unlimited.");
+        stored.setLevel("high!");
+        stored.setReason("reason");
+        when(repository.findById(anyString())).thenReturn(Optional.of(stored));
+
+        assertThat(cache.find("Liability is unlimited.", regulations, "en")).isEmpty();
+
+        stored.setLevel("high");
+        assertThat(cache.find("Liability is unlimited.", regulations, "en"))
+                .map(OpenAiClient.RiskAnalysis::level)
+                .contains("HIGH");
+    }
+
+    @Test
+    void verdictWithInvalidLevelIsReplacedByTheNextPut() {
+        // Keeps what upsert writes, like the table would
+        Map<String, RiskVerdict> table = new HashMap<>();
+        when(repository.findById(anyString())).thenAnswer(call -> Optional.ofNullable(table.get(call.<String>getArgument(0))));
+        when(repository.upsert(anyString(), anyString(), any(), any(), any(), any())).thenAnswer(call -> {
+            RiskVerdict row = new RiskVerdict();
+            row.setCacheKey(call.getArgument(0));
+            row.setRegulationIds(call.getArgument(1));
+            row.setClause(call.getArgument(2));
+            row.setLevel(call.getArgument(3));
+            row.setReason(call.getArgument(4));
+            row.setSuggestion(call.getArgument(5));
+            table.put(row.getCacheKey(), row);
+            return 1;
+        });
+        String chunk = "Liability is unlimited.";
+        cache.put(chunk, regulations, "en", new OpenAiClient.RiskAnalysis(chunk, "HIGH", "reason", null));
+        table.values().forEach(row -> row.setLevel("CRITICAL"));
+        assertThat(cache.find(chunk, regulations, "en")).isEmpty();
+
+        cache.put(chunk, regulations, "en", new OpenAiClient.RiskAnalysis(chunk, "medium", "new reason", "cap it"));
+
+        assertThat(table).hasSize(1);
+        assertThat(cache.find(chunk, regulations, "en")).contains(
+                new OpenAiClient.RiskAnalysis(chunk, "MEDIUM", "new reason", "cap it"));
+    }
+
+    private static Regulation regulation(Long id) {
+        Regulation regulation = new Regulation();
+        regulation.setId(id);
+        regulation.setContentHash("hash-" + id);
+        return regulation;
+    }
+}
@@ -0,0 +1,382 @@
+package com.earlywarning.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the OpenAI API, for tests and load tests that must not call (or pay for) the real one.
+ * Point openai.base-url at {@link #baseUrl()}.
+ *
+ * <ul>
+ *   <li>/v1/embeddings returns deterministic embeddings: every word of the text is hashed to a signed
+ *       dimension, so texts sharing vocabulary are similar and regulation matching behaves plausibly.</li>
+ *   <li>/v1/chat/completions answers the single and batched risk prompts and the negotiation guide prompt
+ *       with canned JSON; the risk level is derived from a hash of the clause text.</li>
+ *   <li>Each response is delayed by a log-normal latency, and a configurable share of requests fails with
+ *       500 or 429 (with retry-after).</li>
+ * </ul>
+ *
+ * Can also be run on its own: {@code OpenAiStubServer [port]}.
+ */
+public class OpenAiStubServer implements AutoCloseable {
+
+    private static final String[] LEVELS = {"HIGH", "MEDIUM", "LOW", "NONE"};
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern SINGLE_TEXT = Pattern.compile(
+            "(?:Text|텍스트): \"(.*?)\"\\n\\n(?:Related regulations|관련 규제): ", Pattern.DOTALL);
+    private static final Pattern BATCH_TEXT = Pattern.compile(
+            "\\[(\\d+)] \"(.*?)\"\\n(?:Related regulations|관련 규제): ", Pattern.DOTALL);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final int dimension;
+    private final Duration medianLatency;
+    private final double latencySigma;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final Random random;
+    private final Map<String, String> verdictFields;
+    private final boolean truncateBatches;
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private OpenAiStubServer(Builder builder) throws IOException {
+        this.dimension = builder.dimension;
+        this.medianLatency = builder.medianLatency;
+        this.latencySigma = builder.latencySigma;
+        this.errorRate = builder.errorRate;
+        this.rateLimitRate = builder.rateLimitRate;
+        this.random = new Random(builder.seed);
+        this.verdictFields = new HashMap<>(builder.verdictFields);
+        this.truncateBatches = builder.truncateBatches;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", builder.port), 0);
+        // Latency is simulated with sleeps, so every request gets its own virtual thread
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/embeddings", exchange -> handle(exchange, this::embeddings));
+        server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::chatCompletion));
+        server.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Requests received on the path, including failed ones.
+     */
+    public int requests(String path) {
+        AtomicInteger count = requests.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Requests answered with an injected 500 or 429.
+     */
+    public int failures() {
+        return failures.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * The embedding the stub returns for the text, for assertions.
+     */
+    public static float[] embedding(String text, int dimension) {
+        float[] v = new float[dimension];
+        Matcher words = WORD.matcher(text.toLowerCase());
+        boolean any = false;
+        while (words.find()) {
+            int h = mix(words.group().hashCode());
+            v[Math.floorMod(h, dimension)] += (h & 0x40000000) == 0 ? 1f : -1f;
+            any = true;
+        }
+        if (!any) v[0] = 1f;
+
+        double sum = 0;
+        for (float x : v) sum += (double) x * x;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < dimension; i++) v[i] *= inv;
+        return v;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        ObjectNode respond(JsonNode request) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            requests.computeIfAbsent(exchange.getHttpContext().getPath(), p -> new AtomicInteger()).incrementAndGet();
+            JsonNode request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = mapper.readTree(in);
+            }
+            sleep();
+
+            double roll;
+            synchronized (random) {
+                roll = random.nextDouble();
+            }
+            if (roll < errorRate) {
+                failures.incrementAndGet();
+                send(exchange, 500, error("server_error", null, "Injected stub failure"));
+                return;
+            }
+            if (roll < errorRate + rateLimitRate) {
+                failures.incrementAndGet();
+                exchange.getResponseHeaders().add("retry-after", "0.05");
+                send(exchange, 429, error("requests", "rate_limit_exceeded", "Injected stub rate limit"));
+                return;
+            }
+            send(exchange, 200, handler.respond(request));
+        } catch (RuntimeException e) {
+            send(exchange, 400, error("invalid_request_error", null, String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sleep() {
+        if (medianLatency.isZero()) return;
+        double gaussian;
+        synchronized (random) {
+            gaussian = random.nextGaussian();
+        }
+        long nanos = (long) (medianLatency.toNanos() * Math.exp(latencySigma * gaussian));
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ObjectNode embeddings(JsonNode request) {
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = request.path("input");
+        if (input.isArray()) {
+            input.forEach(n -> inputs.add(n.asText()));
+        } else {
+            inputs.add(input.asText());
+        }
+
+        ObjectNode response = mapper.createObjectNode().put("object", "list");
+        ArrayNode data = response.putArray("data");
+        int tokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            ArrayNode values = data.addObject()
+                    .put("object", "embedding")
+                    .put("index", i)
+                    .putArray("embedding");
+            for (float x : embedding(inputs.get(i), dimension)) values.add(x);
+            tokens += tokens(inputs.get(i));
+        }
+        response.put("model", request.path("model").asText());
+        response.putObject("usage").put("prompt_tokens", tokens).put("total_tokens", tokens);
+        return response;
+    }
+
+    private ObjectNode chatCompletion(JsonNode request) throws IOException {
+        String prompt = request.path("messages").path(0).path("content").asText();
+        ObjectNode content;
+        if (prompt.contains("gap_perspective")) {
+            content = negotiationGuide();
+        } else if (prompt.contains("\"results\"")) {
+            content = mapper.createObjectNode();
+            ArrayNode results = content.putArray("results");
+            Matcher m = BATCH_TEXT.matcher(prompt);
+            while (m.find()) {
+                results.add(verdict(m.group(2)).put("id", Integer.parseInt(m.group(1))));
+            }
+        } else {
+            Matcher m = SINGLE_TEXT.matcher(prompt);
+            content = verdict(m.find() ? m.group(1) : prompt);
+        }
+
+        String text = mapper.writeValueAsString(content);
+        boolean truncated = truncateBatches && content.has("results");
+        if (truncated) text = text.substring(0, text.length() / 2);
+        int promptTokens = tokens(prompt);
+        int completionTokens = tokens(text);
+        ObjectNode response = mapper.createObjectNode()
+                .put("id", "chatcmpl-stub")
+                .put("object", "chat.completion")
+                .put("model", request.path("model").asText());
+        ObjectNode choice = response.putArray("choices").addObject().put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", text);
+        choice.put("finish_reason", truncated ? "length" : "stop");
+        response.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+        return response;
+    }
+
+    private ObjectNode verdict(String clause) {
+        String level = LEVELS[Math.floorMod(mix(clause.hashCode()), LEVELS.length)];
+        int end = clause.indexOf('.');
+        String sentence = end > 0 ? clause.substring(0, end + 1) : clause;
+        ObjectNode verdict = mapper.createObjectNode()
+                .put("clause", sentence.length() > 200 ? sentence.substring(0, 200) : sentence)
+                .put("level", level)
+                .put("reason", "Stub verdict (" + level + ")");
+        if ("NONE".equals(level)) {
+            verdict.putNull("suggestion");
+        } else {
+            verdict.put("suggestion", "Stub suggested revision");
+        }
+        verdictFields.forEach((field, value) -> {
+            if (value == null) verdict.remove(field);
+            else verdict.put(field, value);
+        });
+        return verdict;
+    }
+
+    private ObjectNode negotiationGuide() {
+        ObjectNode guide = mapper.createObjectNode();
+        for (String side : List.of("gap_perspective", "eul_perspective")) {
+            ObjectNode perspective = guide.putObject(side).put("summary", "Stub " + side + " summary");
+            perspective.putArray("negotiation_points").add("Stub point 1").add("Stub point 2");
+        }
+        guide.putArray("alternative_clauses").add("Stub alternative clause");
+        guide.put("risk_if_unchanged", "Stub risk if unchanged");
+        return guide;
+    }
+
+    private ObjectNode error(String type, String code, String message) {
+        ObjectNode error = mapper.createObjectNode();
+        error.putObject("error").put("message", message).put("type", type).put("code", code);
+        return error;
+    }
+
+    private void send(HttpExchange exchange, int status, ObjectNode body) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Same rough estimate as OpenAiClient
+    private static int tokens(String text) {
+        return Math.max(1, text.length());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        OpenAiStubServer stub = builder().port(port).latency(Duration.ofMillis(300), 0.5).build();
+        System.out.println("OpenAI stub listening on " + stub.baseUrl());
+    }
+
+    public static class Builder {
+        private int port;
+        private int dimension = 1536;
+        private Duration medianLatency = Duration.ZERO;
+        private double latencySigma;
+        private double errorRate;
+        private double rateLimitRate;
+        private long seed = 42;
+        private final Map<String, String> verdictFields = new HashMap<>();
+        private boolean truncateBatches;
+
+        /**
+         * 0 (default) picks a free port.
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder dimension(int dimension) {
+            this.dimension = dimension;
+            return this;
+        }
+
+        /**
+         * Log-normal response delay: the median, and the standard deviation of its logarithm
+         * (0 for a fixed delay; 0.5 puts p95 at about 2.3x the median).
+         */
+        public Builder latency(Duration median, double sigma) {
+            this.medianLatency = median;
+            this.latencySigma = sigma;
+            return this;
+        }
+
+        /**
+         * Share of requests answered with 500.
+         */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * Share of requests answered with 429.
+         */
+        public Builder rateLimitRate(double rateLimitRate) {
+            this.rateLimitRate = rateLimitRate;
+            return this;
+        }
+
+        /**
+         * Overrides a field of every risk verdict, to simulate malformed model answers; null removes the field.
+         */
+        public Builder verdictField(String field, String value) {
+            this.verdictFields.put(field, value);
+            return this;
+        }
+
+        /**
+         * Cuts batched risk analysis answers in half, as when the model runs out of completion tokens.
+         */
+        public Builder truncateBatches() {
+            this.truncateBatches = true;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public OpenAiStubServer build() throws IOException {
+            return new OpenAiStubServer(this);
+        }
+    }
+}
@@ -5,9 +5,8 @@ interface AnalysisProgressProps {
   progress: ProgressType | null
 }
 
-const STEP_KEYS = ['EXTRACTING', 'CHUNKING', 'ANALYZING', 'EVALUATING', 'COMPLETED'] as const
+const STEP_KEYS = ['CHUNKING', 'ANALYZING', 'EVALUATING', 'COMPLETED'] as const
 const STEP_I18N: Record<string, string> = {
-  EXTRACTING: 'analysisProgress.extracting',
   CHUNKING: 'analysisProgress.chunking',
   ANALYZING: 'analysisProgress.analyzing',
   EVALUATING: 'analysisProgress.evaluating',
@@ -77,6 +76,13 @@ export default function AnalysisProgress({ progress }: AnalysisProgressProps) {
         })}
       </div>
 
+      {progress?.step === 'RETRYING' && (
+        <div className="mt-4 p-3 bg-amber-50 text-amber-700 text-sm">
+          <p className="font-medium">{t('analysisProgress.retrying')}</p>
+          {progress.message && <p className="text-xs mt-0.5">{progress.message}</p>}
+        </div>
+      )}
+
       {progress?.step === 'FAILED' && (
         <div className="mt-4 p-3 bg-red-50 text-red-700 text-sm">
           {progress.message}
@@ -92,7 +92,9 @@ export default function ContractViewer({ content, risks, onRiskClick }: Contract
     const matches: { start: number; end: number; risk: Risk }[] = []
     const matchedIds = new Set<number>()
     for (const risk of risks) {
-      const pos = findClausePosition(content, risk.clause)
+      const pos = risk.clauseStart != null && risk.clauseEnd != null
+        ? { start: risk.clauseStart, end: risk.clauseEnd }
+        : findClausePosition(content, risk.clause)
       if (pos) {
         matches.push({ start: pos.start, end: pos.end, risk })
         matchedIds.add(risk.id)
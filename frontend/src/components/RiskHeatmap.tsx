@@ -38,7 +38,7 @@ export default function RiskHeatmap({ content, risks, onSegmentClick }: RiskHeat
 
   const markers = risks
     .map((risk) => {
-      const idx = findClauseIndex(content, risk.clause)
+      const idx = risk.clauseStart ?? findClauseIndex(content, risk.clause)
       if (idx === -1) return null
       const percent = (idx / content.length) * 100
       return { risk, percent }
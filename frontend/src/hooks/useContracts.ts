@@ -13,6 +13,8 @@ export function useContract(id: number) {
     queryKey: ['contract', id],
     queryFn: () => getContract(id),
     enabled: !!id,
+    // Fallback for when the progress stream misses the final event
+    refetchInterval: (query) => (query.state.data?.status === 'ANALYZING' ? 5000 : false),
   })
 }
 
@@ -41,6 +41,9 @@ export interface Risk {
   id: number
   clause: string
   level: RiskLevel
+  // Offsets of the clause in the contract content, when the server located it
+  clauseStart?: number | null
+  clauseEnd?: number | null
 }
 
 export interface RiskDetail extends Risk {
@@ -85,7 +88,7 @@ export interface ContractDetail {
 }
 
 export interface AnalysisProgress {
-  step: 'EXTRACTING' | 'CHUNKING' | 'ANALYZING' | 'EVALUATING' | 'COMPLETED' | 'FAILED'
+  step: 'CHUNKING' | 'ANALYZING' | 'EVALUATING' | 'COMPLETED' | 'FAILED' | 'RETRYING'
   message: string
   current: number
   total: number